@@ -0,0 +1,106 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.enums.QueueType;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.BulkTaskQueue;
+import lii.concurqueuesystem.queue.FairShareQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of submitting one producer batch, task by task against offerAll, while 5 consumers poll.
+ * SampleTime reports the p99 of a submission; tasks/us is batchSize divided by the mean.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ProducerBatchBenchmark {
+
+    @Param({"PRIORITY_HEAP", "PRIORITY_BUCKETS", "FAIR_SHARE"})
+    private QueueType queueType;
+
+    @Param({"8", "256"})
+    private int batchSize;
+
+    private BlockingQueue<Task> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = switch (queueType) {
+            case PRIORITY_HEAP -> new PriorityBlockingQueue<>();
+            case PRIORITY_BUCKETS -> new PriorityBucketQueue();
+            case EARLIEST_DEADLINE_FIRST -> new PriorityBlockingQueue<>(11, Task.EARLIEST_DEADLINE_FIRST);
+            case FAIR_SHARE -> new FairShareQueue();
+        };
+    }
+
+    @Benchmark
+    @Group("singleOffers")
+    @GroupThreads(3)
+    public int offerEach(ProducerBuffer buffer, TaskSource source) {
+        int admitted = 0;
+        for (Task task : buffer.fill(source, batchSize)) {
+            if (queue.offer(task)) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    @Benchmark
+    @Group("singleOffers")
+    @GroupThreads(5)
+    public Task pollSingle() {
+        return queue.poll();
+    }
+
+    @Benchmark
+    @Group("bulkOffers")
+    @GroupThreads(3)
+    public int offerAll(ProducerBuffer buffer, TaskSource source) {
+        List<Task> batch = buffer.fill(source, batchSize);
+        return batch.size() - BulkTaskQueue.offerAll(queue, batch, 0, TimeUnit.MILLISECONDS).size();
+    }
+
+    @Benchmark
+    @Group("bulkOffers")
+    @GroupThreads(5)
+    public Task pollBulk() {
+        return queue.poll();
+    }
+
+    @State(Scope.Thread)
+    public static class ProducerBuffer {
+        final List<Task> batch = new ArrayList<>(256);
+
+        List<Task> fill(TaskSource source, int size) {
+            batch.clear();
+            for (int i = 0; i < size; i++) {
+                batch.add(source.next());
+            }
+            return batch;
+        }
+    }
+}
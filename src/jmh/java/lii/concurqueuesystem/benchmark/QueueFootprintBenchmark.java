@@ -0,0 +1,99 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.codec.DirectBufferPool;
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.AdmissionStats;
+import lii.concurqueuesystem.queue.OffHeapPayloadQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Retained heap per queued task with tasks on the heap versus encoded in pooled direct buffers.
+ * Read the heapBytesPerTask and offHeapBytesPerTask secondary results; the timing is only the fill cost.
+ * JMH sums event counters over iterations, so keep a single measurement iteration.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class QueueFootprintBenchmark {
+
+    private static final int QUEUED_TASKS = 200_000;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public String storage;
+
+    @Param({"32", "512"})
+    public int payloadBytes;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private char[] payloadTemplate;
+    private BlockingQueue<Task> queue;
+    private DirectBufferPool pool;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double heapBytesPerTask;
+        public double offHeapBytesPerTask;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        payloadTemplate = new char[payloadBytes];
+        Arrays.fill(payloadTemplate, 'x');
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        queue = null;
+        pool = null;
+    }
+
+    @Benchmark
+    public int fillQueue(Footprint footprint) throws InterruptedException {
+        long before = usedHeapAfterGc();
+
+        pool = new DirectBufferPool(4 * 1024 * 1024);
+        BlockingQueue<Task> buckets = new PriorityBucketQueue(QUEUED_TASKS, AdmissionPolicy.REJECT, new AdmissionStats());
+        queue = "OFF_HEAP".equals(storage) ? new OffHeapPayloadQueue(buckets, pool) : buckets;
+        for (int i = 0; i < QUEUED_TASKS; i++) {
+            // A fresh String per task, as producers build them, so payloads are not shared.
+            queue.put(new Task("Footprint-Task-" + i, Task.MIN_PRIORITY + i % Task.MAX_PRIORITY,
+                    new String(payloadTemplate)));
+        }
+
+        long after = usedHeapAfterGc();
+        footprint.heapBytesPerTask = (double) (after - before) / QUEUED_TASKS;
+        footprint.offHeapBytesPerTask = (double) pool.getAllocatedBytes() / QUEUED_TASKS;
+        return queue.size();
+    }
+
+    private long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
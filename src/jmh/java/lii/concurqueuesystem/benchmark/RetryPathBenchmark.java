@@ -0,0 +1,58 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.DelayedRetryQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import lii.concurqueuesystem.queue.RetryBackoff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One failed task's trip through the retry path: copy, schedule with zero backoff,
+ * release by the retry scheduler and re-admission to the main queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RetryPathBenchmark {
+
+    private Task failed;
+    private DelayedRetryQueue retryQueue;
+    private PriorityBucketQueue mainQueue;
+    private RetryBackoff backoff;
+
+    @Setup
+    public void setUp() {
+        failed = new Task("Benchmark-Task", 5, "BENCHMARK_PAYLOAD");
+        retryQueue = new DelayedRetryQueue(new RetryBackoff(0, 1.0, 0, 0.0));
+        mainQueue = new PriorityBucketQueue();
+        backoff = new RetryBackoff(2000, 2.0, 30000, 0.2);
+    }
+
+    @Benchmark
+    public Task retryRoundTrip() {
+        retryQueue.offer(new Task(failed));
+        Task retry = retryQueue.poll();
+        retry.markEnqueued();
+        mainQueue.offer(retry);
+        return mainQueue.poll();
+    }
+
+    @Benchmark
+    public long backoffWithJitter() {
+        return backoff.delayMillis(3);
+    }
+}
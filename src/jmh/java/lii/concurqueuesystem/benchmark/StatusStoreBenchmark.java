@@ -0,0 +1,78 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.status.TaskStatusStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Status transition cost for the compact store against the String-keyed map it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StatusStoreBenchmark {
+
+    private static final int TRACKED_TASKS = 1 << 16;
+
+    private final UUID[] ids = new UUID[TRACKED_TASKS];
+    private TaskStatusStore store;
+    private ConcurrentHashMap<String, TaskStatus> legacyMap;
+
+    @Setup
+    public void setUp() {
+        store = new TaskStatusStore(TimeUnit.MINUTES.toMillis(5), TRACKED_TASKS);
+        legacyMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < TRACKED_TASKS; i++) {
+            ids[i] = UUID.randomUUID();
+            store.put(ids[i], TaskStatus.SUBMITTED);
+            legacyMap.put(ids[i].toString(), TaskStatus.SUBMITTED);
+        }
+    }
+
+    @Benchmark
+    public TaskStatus storeTransition(Cursor cursor) {
+        return store.put(ids[cursor.next()], cursor.status());
+    }
+
+    @Benchmark
+    public TaskStatus legacyMapTransition(Cursor cursor) {
+        return legacyMap.put(ids[cursor.next()].toString(), cursor.status());
+    }
+
+    @Benchmark
+    public long storeStatusCount() {
+        return store.count(TaskStatus.PROCESSING);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        int next() {
+            index = (index + 1) & (TRACKED_TASKS - 1);
+            return index;
+        }
+
+        TaskStatus status() {
+            return (index & 1) == 0 ? TaskStatus.PROCESSING : TaskStatus.SUBMITTED;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskCreationBenchmark {
+
+    private Task original;
+
+    @Setup
+    public void setUp() {
+        original = new Task("Benchmark-Task", 5, "BENCHMARK_PAYLOAD");
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public Task newTask() {
+        return new Task("Benchmark-Task", 5, "BENCHMARK_PAYLOAD");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Task newTaskContended() {
+        return new Task("Benchmark-Task", 5, "BENCHMARK_PAYLOAD");
+    }
+
+    @Benchmark
+    public Task retryCopy() {
+        return new Task(original);
+    }
+}
@@ -0,0 +1,67 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.enums.QueueType;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.FairShareQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Enqueue/dequeue throughput of the main task queue with 3 producers and 5 consumers,
+ * the application's default shape. Change the split with -tg, e.g. -tg 16,16.
+ * The offer score is the sustained enqueue rate; poll also counts polls that found the queue empty.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class TaskQueueBenchmark {
+
+    @Param({"PRIORITY_HEAP", "PRIORITY_BUCKETS", "FAIR_SHARE"})
+    private QueueType queueType;
+
+    private BlockingQueue<Task> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = switch (queueType) {
+            case PRIORITY_HEAP -> new PriorityBlockingQueue<>();
+            case PRIORITY_BUCKETS -> new PriorityBucketQueue();
+            case EARLIEST_DEADLINE_FIRST -> new PriorityBlockingQueue<>(11, Task.EARLIEST_DEADLINE_FIRST);
+            case FAIR_SHARE -> new FairShareQueue();
+        };
+    }
+
+    @Benchmark
+    @Group("producersConsumers")
+    @GroupThreads(3)
+    public boolean offer(TaskSource source) {
+        return queue.offer(source.next());
+    }
+
+    @Benchmark
+    @Group("producersConsumers")
+    @GroupThreads(5)
+    public Task poll() {
+        return queue.poll();
+    }
+}
@@ -0,0 +1,33 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.model.Task;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+@State(Scope.Thread)
+public class TaskSource {
+
+    private static final int POOL_SIZE = 1024;
+
+    private final Task[] tasks = new Task[POOL_SIZE];
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            tasks[i] = new Task("Benchmark-Task-" + i,
+                    Task.MIN_PRIORITY + random.nextInt(Task.MAX_PRIORITY),
+                    "BENCHMARK_PAYLOAD_" + i);
+        }
+    }
+
+    public Task next() {
+        Task task = tasks[cursor];
+        cursor = (cursor + 1) & (POOL_SIZE - 1);
+        return task;
+    }
+}
@@ -0,0 +1,74 @@
+package lii.concurqueuesystem.benchmark;
+
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of one TaskWorker consumption cycle at different batch sizes. SampleTime reports the
+ * p99 of a cycle; tasks/us is batchSize divided by the mean, so the two can be plotted together.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class WorkerBatchBenchmark {
+
+    private static final int WORK_TOKENS_PER_TASK = 64;
+
+    @Param({"1", "8", "32"})
+    private int batchSize;
+
+    private PriorityBucketQueue queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new PriorityBucketQueue();
+    }
+
+    @Benchmark
+    @Group("batchConsumption")
+    @GroupThreads(3)
+    public boolean produce(TaskSource source) {
+        return queue.offer(source.next());
+    }
+
+    @Benchmark
+    @Group("batchConsumption")
+    @GroupThreads(5)
+    public int consume(ConsumerBuffer buffer, Blackhole blackhole) {
+        List<Task> batch = buffer.batch;
+        batch.clear();
+        int drained = queue.drainTo(batch, batchSize);
+        for (int i = 0; i < drained; i++) {
+            blackhole.consume(batch.get(i));
+            Blackhole.consumeCPU(WORK_TOKENS_PER_TASK);
+        }
+        return drained;
+    }
+
+    @State(Scope.Thread)
+    public static class ConsumerBuffer {
+        final List<Task> batch = new ArrayList<>(64);
+    }
+}
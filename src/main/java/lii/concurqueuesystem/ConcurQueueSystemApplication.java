@@ -1,18 +1,56 @@
 package lii.concurqueuesystem;
 
+import lii.concurqueuesystem.codec.BinaryTaskCodec;
+import lii.concurqueuesystem.codec.DirectBufferPool;
+import lii.concurqueuesystem.codec.TaskCodec;
+import lii.concurqueuesystem.config.SystemConfig;
 import lii.concurqueuesystem.demo.ConcurrencyDemo;
+import lii.concurqueuesystem.logging.AsyncLogDispatcher;
 import lii.concurqueuesystem.logging.ColoredConsoleFormatter;
+import lii.concurqueuesystem.logging.TaskLogger;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
 import lii.concurqueuesystem.consumer.RetryWorker;
+import lii.concurqueuesystem.consumer.StallWatchdog;
 import lii.concurqueuesystem.consumer.TaskWorker;
+import lii.concurqueuesystem.consumer.VirtualThreadDispatcher;
+import lii.concurqueuesystem.consumer.WorkerPoolAutoscaler;
+import lii.concurqueuesystem.consumer.WorkerRoster;
+import lii.concurqueuesystem.enums.LatencyType;
+import lii.concurqueuesystem.enums.PriorityBand;
 import lii.concurqueuesystem.enums.ProducerStrategy;
 import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.enums.WorkerMode;
+import lii.concurqueuesystem.handler.SimulatedTaskHandler;
+import lii.concurqueuesystem.handler.TaskHandlerRegistry;
 import lii.concurqueuesystem.model.Task;
 import lii.concurqueuesystem.monitor.SystemMonitor;
+import lii.concurqueuesystem.persistence.JournaledTaskQueue;
+import lii.concurqueuesystem.persistence.QueueSnapshot;
+import lii.concurqueuesystem.persistence.TaskWriteAheadLog;
+import lii.concurqueuesystem.producer.RateLimiterRegistry;
 import lii.concurqueuesystem.producer.TaskProducer;
+import lii.concurqueuesystem.producer.TokenBucketRateLimiter;
+import lii.concurqueuesystem.queue.AdmissionStats;
+import lii.concurqueuesystem.queue.DelayedRetryQueue;
+import lii.concurqueuesystem.queue.FairShareQueue;
+import lii.concurqueuesystem.queue.IdempotencyCache;
+import lii.concurqueuesystem.queue.OffHeapPayloadQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import lii.concurqueuesystem.queue.RetryBackoff;
+import lii.concurqueuesystem.queue.WorkStealingScheduler;
+import lii.concurqueuesystem.status.TaskStatusStore;
 import lii.concurqueuesystem.util.DisplayFormatter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -24,32 +62,77 @@ import java.util.logging.Logger;
 
 public class ConcurQueueSystemApplication {
     private static final Logger logger = Logger.getLogger(ConcurQueueSystemApplication.class.getName());
+    private static final long PENDING_COMPLETION_POLL_MILLIS = 10;
 
-    private static final int WORKER_POOL_SIZE = 5;
-    private static final int RETRY_WORKER_COUNT = 2;
-    private static final int QUEUE_CAPACITY = 50;
+    private final SystemConfig config;
+    private final TaskCodec taskCodec;
 
     private final BlockingQueue<Task> taskQueue;
     private final BlockingQueue<Task> retryQueue;
+    private final DelayedRetryQueue delayedRetryQueue;
     private final ThreadPoolExecutor workerPool;
     private final ExecutorService retryWorkerPool;
-    private final ConcurrentHashMap<String, TaskStatus> taskStatusMap;
+    private final TaskStatusStore taskStatusStore;
+    private final AdmissionStats admissionStats;
+    private final IdempotencyCache idempotencyCache;
+    private final RateLimiterRegistry rateLimiters;
+    private final TaskWriteAheadLog writeAheadLog;
+    private final OffHeapPayloadQueue offHeapQueue;
 
     private final AtomicBoolean shutdown;
     private final AtomicInteger tasksProcessed;
     private final AtomicLong totalProcessingTime;
+    private final AtomicInteger tasksExpired;
+    private final AtomicInteger tasksInFlight;
+    private final AtomicBoolean draining;
+    private final LatencyMetrics latencyMetrics;
+    private final TaskHandlerRegistry handlerRegistry;
+    private final WorkerRoster workerRoster;
+    private final StallWatchdog stallWatchdog;
 
     private final List<Thread> producerThreads;
     private Thread monitorThread;
+    private Thread watchdogThread;
+    private Thread autoscalerThread;
+    private WorkerPoolAutoscaler autoscaler;
+    private WorkStealingScheduler workStealingScheduler;
+    private PriorityBucketQueue priorityBucketQueue;
+    private FairShareQueue fairShareQueue;
 
     public ConcurQueueSystemApplication() {
+        this(new SystemConfig());
+    }
 
-        this.taskQueue = new PriorityBlockingQueue<>(QUEUE_CAPACITY);
-        this.retryQueue = new LinkedBlockingQueue<>();
+    public ConcurQueueSystemApplication(SystemConfig config) {
+        this.config = config;
+        this.taskCodec = new BinaryTaskCodec();
+
+        this.taskStatusStore = new TaskStatusStore(
+                config.getStatusRetentionMillis(),
+                config.getStatusMaxTerminalEntries());
+        this.admissionStats = new AdmissionStats();
+        this.idempotencyCache = config.isDeduplicationEnabled()
+                ? new IdempotencyCache(config.getDeduplicationWindowMillis(), config.getDeduplicationMaxKeys())
+                : null;
+        this.rateLimiters = config.isRateLimitingEnabled()
+                ? new RateLimiterRegistry(config.getProducerRatePerSecond(), config.getProducerBurst(),
+                        config.getRateLimitMode())
+                : null;
+        this.writeAheadLog = createWriteAheadLog();
+        this.offHeapQueue = config.isOffHeapPayloads()
+                ? new OffHeapPayloadQueue(createTaskQueue(), new DirectBufferPool(config.getOffHeapSlabBytes()))
+                : null;
+        this.taskQueue = journaled(offHeapQueue != null ? offHeapQueue : createTaskQueue());
+        this.delayedRetryQueue = new DelayedRetryQueue(new RetryBackoff(
+                config.getRetryBaseDelayMillis(),
+                config.getRetryBackoffMultiplier(),
+                config.getRetryMaxDelayMillis(),
+                config.getRetryJitterRatio()));
+        this.retryQueue = journaled(delayedRetryQueue);
 
         this.workerPool = new ThreadPoolExecutor(
-                WORKER_POOL_SIZE,
-                WORKER_POOL_SIZE,
+                config.getWorkerPoolSize(),
+                config.getWorkerPoolSize(),
                 30L,
                 TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(),
@@ -64,20 +147,107 @@ public class ConcurQueueSystemApplication {
                 }
         );
 
-        this.retryWorkerPool = Executors.newFixedThreadPool(RETRY_WORKER_COUNT, r -> {
+        this.retryWorkerPool = Executors.newFixedThreadPool(config.getRetryWorkerCount(), r -> {
             Thread t = new Thread(r, "RetryWorker-" + System.currentTimeMillis());
             t.setDaemon(true);
             return t;
         });
 
 
-        this.taskStatusMap = new ConcurrentHashMap<>();
         this.shutdown = new AtomicBoolean(false);
         this.tasksProcessed = new AtomicInteger(0);
         this.totalProcessingTime = new AtomicLong(0);
+        this.tasksExpired = new AtomicInteger(0);
+        this.tasksInFlight = new AtomicInteger(0);
+        this.draining = new AtomicBoolean(false);
+        this.latencyMetrics = new LatencyMetrics();
+        this.handlerRegistry = new TaskHandlerRegistry(new SimulatedTaskHandler());
+        this.workerRoster = new WorkerRoster(workerPool);
+        this.stallWatchdog = config.isStallDetectionEnabled()
+                ? new StallWatchdog(
+                        config.getStallDeadlineHighMillis(),
+                        config.getStallDeadlineMediumMillis(),
+                        config.getStallDeadlineLowMillis(),
+                        config.getStallCheckIntervalMillis(),
+                        workerRoster)
+                : null;
         this.producerThreads = new ArrayList<>();
     }
 
+    private BlockingQueue<Task> createTaskQueue() {
+        return switch (config.getQueueType()) {
+            case PRIORITY_HEAP -> new PriorityBlockingQueue<>(config.getQueueCapacity());
+            case EARLIEST_DEADLINE_FIRST -> new PriorityBlockingQueue<>(config.getQueueCapacity(),
+                    Task.EARLIEST_DEADLINE_FIRST);
+            case PRIORITY_BUCKETS -> {
+                PriorityBucketQueue queue = new PriorityBucketQueue(
+                        config.getQueueCapacity(),
+                        config.getAdmissionPolicy(),
+                        admissionStats,
+                        config.getAgingIntervalMillis(),
+                        config.getAgingCeilingPriority());
+                queue.setEvictionListener(this::onEvicted);
+                priorityBucketQueue = queue;
+                yield queue;
+            }
+            case FAIR_SHARE -> {
+                FairShareQueue queue = new FairShareQueue(
+                        config.getQueueCapacity(),
+                        config.getAdmissionPolicy(),
+                        admissionStats,
+                        FairShareQueue.BY_NAME_PREFIX,
+                        config.getFairShareWeights(),
+                        config.getFairShareDefaultWeight());
+                queue.setEvictionListener(this::onEvicted);
+                fairShareQueue = queue;
+                yield queue;
+            }
+        };
+    }
+
+    private void onEvicted(Task task) {
+        taskStatusStore.put(task.getId(), TaskStatus.DROPPED);
+        logger.warning(String.format("Task %s evicted from full queue by %s policy",
+                task.getName(), config.getAdmissionPolicy()));
+        // Released last: an off-heap victim reads its name from the slot.
+        OffHeapPayloadQueue.release(task);
+    }
+
+
+    private TaskWriteAheadLog createWriteAheadLog() {
+        if (!config.isPersistenceEnabled()) {
+            return null;
+        }
+        TaskWriteAheadLog wal = new TaskWriteAheadLog(
+                Path.of(config.getWalDirectory()),
+                config.getWalSegmentBytes(),
+                config.getWalSyncPolicy(),
+                config.getWalSyncIntervalMillis(),
+                taskCodec);
+        // FAILED means an interrupted worker could not hand its task back, so that task stays in the log for replay.
+        taskStatusStore.setTerminalListener((taskId, status) -> {
+            if (status != TaskStatus.FAILED) {
+                wal.appendTombstone(taskId);
+            }
+        });
+        return wal;
+    }
+
+    private BlockingQueue<Task> journaled(BlockingQueue<Task> queue) {
+        return writeAheadLog == null ? queue : new JournaledTaskQueue(queue, writeAheadLog);
+    }
+
+    public TaskHandlerRegistry getHandlerRegistry() {
+        return handlerRegistry;
+    }
+
+    public RateLimiterRegistry getRateLimiters() {
+        return rateLimiters;
+    }
+
+    public FairShareQueue getFairShareQueue() {
+        return fairShareQueue;
+    }
 
     public void start() {
         logger.info("Starting ConcurQueue system...");
@@ -86,8 +256,12 @@ public class ConcurQueueSystemApplication {
 
         startWorkers();
 
+        startStallWatchdog();
+
         startRetryWorkers();
 
+        replayWriteAheadLog(restoreSnapshot());
+
         startProducers();
 
         startMonitor();
@@ -111,32 +285,226 @@ public class ConcurQueueSystemApplication {
         consoleHandler.setFormatter(new ColoredConsoleFormatter());
 
         rootLogger.addHandler(consoleHandler);
+
+        if (config.isAsyncLogging()) {
+            TaskLogger.enableAsync(config.getAsyncLogBufferSize());
+            logger.info(String.format("Async task logging enabled with a %d event buffer",
+                    config.getAsyncLogBufferSize()));
+        }
     }
 
     private void startWorkers() {
+        if (config.getWorkerMode() == WorkerMode.VIRTUAL_THREADS) {
+            startVirtualThreadDispatcher();
+            return;
+        }
+
         logger.info("Starting worker threads...");
 
-        for (int i = 0; i < WORKER_POOL_SIZE; i++) {
-            workerPool.submit(new TaskWorker(
+        if (config.getWorkerMode() == WorkerMode.WORK_STEALING) {
+            workStealingScheduler = new WorkStealingScheduler(
                     taskQueue,
-                    retryQueue,
-                    taskStatusMap,
-                    tasksProcessed,
-                    totalProcessingTime
-            ));
+                    config.getWorkerPoolSize(),
+                    config.getWorkStealingRefillBatch(),
+                    config.getWorkStealingGlobalCheckInterval());
+        }
+
+        for (int i = 0; i < config.getWorkerPoolSize(); i++) {
+            workerPool.submit(newTaskWorker(
+                    workStealingScheduler != null ? workStealingScheduler.workerQueue(i) : taskQueue));
+        }
+
+        logger.info(String.format("Started %d %s worker threads using %s queue",
+                config.getWorkerPoolSize(), config.getWorkerMode(), config.getQueueType()));
+
+        startAutoscaler();
+    }
+
+    private TaskWorker newTaskWorker(BlockingQueue<Task> workerQueue) {
+        return new TaskWorker(
+                workerQueue,
+                retryQueue,
+                taskStatusStore,
+                tasksProcessed,
+                totalProcessingTime,
+                tasksExpired,
+                tasksInFlight,
+                draining,
+                latencyMetrics,
+                handlerRegistry,
+                config.getAsyncHandlerMaxInFlight(),
+                config.getWorkerBatchSize(),
+                config.getWorkerBatchLingerMillis(),
+                workerRoster
+        );
+    }
+
+    private void startAutoscaler() {
+        if (!config.isAutoscalingEnabled()) {
+            return;
+        }
+        // Work-stealing workers each own a fixed deque, so only the shared-queue pool can change size.
+        if (config.getWorkerMode() != WorkerMode.PLATFORM_POOL) {
+            logger.info(String.format("Worker autoscaling is not available in %s mode", config.getWorkerMode()));
+            return;
+        }
+
+        autoscaler = new WorkerPoolAutoscaler(
+                taskQueue,
+                workerRoster,
+                latencyMetrics,
+                () -> newTaskWorker(taskQueue),
+                config.getAutoscaleMinWorkers(),
+                config.getAutoscaleMaxWorkers(),
+                config.getAutoscaleIntervalMillis(),
+                config.getAutoscaleCooldownMillis(),
+                config.getAutoscaleScaleUpDepthPerWorker(),
+                config.getAutoscaleScaleDownDepthPerWorker(),
+                config.getAutoscaleScaleUpQueueWaitMillis(),
+                config.getAutoscaleScaleDownUtilization(),
+                config.getAutoscaleScaleUpSamples(),
+                config.getAutoscaleScaleDownSamples());
+        autoscalerThread = new Thread(autoscaler, "WorkerAutoscaler");
+        autoscalerThread.setDaemon(true);
+        autoscalerThread.start();
+
+        logger.info(String.format("Worker autoscaler keeping the pool between %d and %d workers",
+                config.getAutoscaleMinWorkers(), config.getAutoscaleMaxWorkers()));
+    }
+
+    private void startVirtualThreadDispatcher() {
+        logger.info("Starting virtual thread dispatcher...");
+
+        workerPool.submit(new VirtualThreadDispatcher(
+                taskQueue,
+                new TaskWorker(
+                        taskQueue,
+                        retryQueue,
+                        taskStatusStore,
+                        tasksProcessed,
+                        totalProcessingTime,
+                        tasksExpired,
+                        tasksInFlight,
+                        draining,
+                        latencyMetrics,
+                        handlerRegistry,
+                        config.getAsyncHandlerMaxInFlight(),
+                        workerRoster
+                ),
+                config.getVirtualThreadConcurrency(),
+                tasksInFlight,
+                draining
+        ));
+
+        logger.info(String.format("Virtual thread dispatcher running up to %d concurrent tasks using %s queue",
+                config.getVirtualThreadConcurrency(), config.getQueueType()));
+    }
+
+    private void startStallWatchdog() {
+        if (stallWatchdog == null) {
+            return;
         }
 
-        logger.info(String.format("Started %d worker threads", WORKER_POOL_SIZE));
+        watchdogThread = new Thread(stallWatchdog, "StallWatchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+
+        logger.info(String.format("Stall watchdog started with deadlines of %d/%d/%d ms for high/medium/low priority",
+                config.getStallDeadlineHighMillis(),
+                config.getStallDeadlineMediumMillis(),
+                config.getStallDeadlineLowMillis()));
     }
 
     private void startRetryWorkers() {
         logger.info("Starting retry workers...");
 
-        for (int i = 0; i < RETRY_WORKER_COUNT; i++) {
-            retryWorkerPool.submit(new RetryWorker(retryQueue, taskQueue));
+        for (int i = 0; i < config.getRetryWorkerCount(); i++) {
+            retryWorkerPool.submit(new RetryWorker(retryQueue, taskQueue, taskStatusStore, tasksExpired,
+                    tasksInFlight, draining));
+        }
+
+        logger.info(String.format("Started %d retry workers", config.getRetryWorkerCount()));
+    }
+
+    private Set<UUID> restoreSnapshot() {
+        Set<UUID> restored = new HashSet<>();
+        Path file = Path.of(config.getSnapshotFile());
+        if (!config.isShutdownSnapshotEnabled() || !Files.exists(file)) {
+            return restored;
+        }
+
+        QueueSnapshot snapshot;
+        try {
+            snapshot = QueueSnapshot.readFrom(file, taskCodec);
+        } catch (IOException e) {
+            logger.severe(String.format("Could not restore queue snapshot %s: %s", file, e.getMessage()));
+            return restored;
+        }
+
+        logger.info(String.format("Restoring %d queued and %d retrying tasks from snapshot %s...",
+                snapshot.getMainQueueTasks().size(), snapshot.getRetryQueueTasks().size(), file));
+        try {
+            for (Task task : snapshot.getMainQueueTasks()) {
+                rememberIdempotencyKey(task);
+                taskStatusStore.put(task.getId(), TaskStatus.SUBMITTED);
+                task.markEnqueued();
+                taskQueue.put(task);
+                restored.add(task.getId());
+            }
+            for (Task task : snapshot.getRetryQueueTasks()) {
+                rememberIdempotencyKey(task);
+                taskStatusStore.put(task.getId(), TaskStatus.RETRY);
+                // Waiting retries count as in flight, and the retry worker settles the count when it requeues them.
+                tasksInFlight.incrementAndGet();
+                retryQueue.put(task);
+                restored.add(task.getId());
+            }
+            Files.delete(file);
+        } catch (InterruptedException e) {
+            logger.warning("Interrupted while restoring the queue snapshot");
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warning(String.format("Restored snapshot but could not delete %s: %s", file, e.getMessage()));
+        }
+        return restored;
+    }
+
+    private void replayWriteAheadLog(Set<UUID> alreadyRestored) {
+        if (writeAheadLog == null) {
+            return;
+        }
+
+        List<Task> recovered = writeAheadLog.takeRecoveredTasks();
+        recovered.removeIf(task -> alreadyRestored.contains(task.getId()));
+        if (recovered.isEmpty()) {
+            return;
+        }
+
+        logger.info(String.format("Replaying %d tasks from the write-ahead log...", recovered.size()));
+        // Recovered tasks are already in the compacted log, so they bypass the journal.
+        BlockingQueue<Task> target = ((JournaledTaskQueue) taskQueue).getDelegate();
+        try {
+            for (Task task : recovered) {
+                rememberIdempotencyKey(task);
+                taskStatusStore.put(task.getId(), TaskStatus.SUBMITTED);
+                task.markEnqueued();
+                target.put(task);
+            }
+        } catch (InterruptedException e) {
+            logger.warning("Interrupted while replaying the write-ahead log");
+            Thread.currentThread().interrupt();
         }
+    }
+
+    // Restored work still holds its key, so a producer resubmitting it after the restart is merged, not rerun.
+    private void rememberIdempotencyKey(Task task) {
+        if (idempotencyCache != null && task.hasIdempotencyKey()) {
+            idempotencyCache.putIfAbsent(task.getIdempotencyKey(), task.getId());
+        }
+    }
 
-        logger.info(String.format("Started %d retry workers", RETRY_WORKER_COUNT));
+    private TokenBucketRateLimiter rateLimiterFor(String producerName) {
+        return rateLimiters == null ? null : rateLimiters.forProducer(producerName);
     }
 
     private void startProducers() {
@@ -145,11 +513,16 @@ public class ConcurQueueSystemApplication {
         Thread highPriorityProducer = new Thread(new TaskProducer(
                 "HighPriorityProducer",
                 taskQueue,
-                taskStatusMap,
+                taskStatusStore,
                 shutdown,
                 ProducerStrategy.HIGH_PRIORITY_FOCUSED,
                 3,
-                3000
+                3000,
+                config.getAdmissionTimeoutMillis(),
+                config.getTaskTimeToLiveMillis(),
+                idempotencyCache,
+                config.getDuplicateSubmissionRate(),
+                rateLimiterFor("HighPriorityProducer")
         ));
         highPriorityProducer.setDaemon(false);
         producerThreads.add(highPriorityProducer);
@@ -157,11 +530,16 @@ public class ConcurQueueSystemApplication {
         Thread balancedProducer = new Thread(new TaskProducer(
                 "BalancedProducer",
                 taskQueue,
-                taskStatusMap,
+                taskStatusStore,
                 shutdown,
                 ProducerStrategy.BALANCED,
                 5,
-                4000
+                4000,
+                config.getAdmissionTimeoutMillis(),
+                config.getTaskTimeToLiveMillis(),
+                idempotencyCache,
+                config.getDuplicateSubmissionRate(),
+                rateLimiterFor("BalancedProducer")
         ));
         balancedProducer.setDaemon(false);
         producerThreads.add(balancedProducer);
@@ -169,11 +547,16 @@ public class ConcurQueueSystemApplication {
         Thread batchProducer = new Thread(new TaskProducer(
                 "BatchProducer",
                 taskQueue,
-                taskStatusMap,
+                taskStatusStore,
                 shutdown,
                 ProducerStrategy.LOW_PRIORITY_BATCH,
                 8,
-                6000
+                6000,
+                config.getAdmissionTimeoutMillis(),
+                config.getTaskTimeToLiveMillis(),
+                idempotencyCache,
+                config.getDuplicateSubmissionRate(),
+                rateLimiterFor("BatchProducer")
         ));
         batchProducer.setDaemon(false);
         producerThreads.add(batchProducer);
@@ -192,10 +575,20 @@ public class ConcurQueueSystemApplication {
                 taskQueue,
                 retryQueue,
                 workerPool,
-                taskStatusMap,
+                taskStatusStore,
                 shutdown,
                 tasksProcessed,
-                totalProcessingTime
+                totalProcessingTime,
+                tasksExpired,
+                tasksInFlight,
+                config,
+                admissionStats,
+                latencyMetrics,
+                stallWatchdog,
+                autoscaler,
+                idempotencyCache,
+                rateLimiters,
+                fairShareQueue
         ));
         monitorThread.setDaemon(true);
         monitorThread.start();
@@ -211,9 +604,15 @@ public class ConcurQueueSystemApplication {
     }
 
     public void shutdown() {
+        // The shutdown hook calls this again after an explicit shutdown; a second pass would overwrite the snapshot.
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
         logger.info("Initiating system shutdown...");
 
-        shutdown.set(true);
+        if (autoscalerThread != null) {
+            autoscalerThread.interrupt();
+        }
 
 
         logger.info("Stopping producers...");
@@ -231,27 +630,51 @@ public class ConcurQueueSystemApplication {
             }
         }
 
-        logger.info("Processing remaining tasks...");
-        drainQueue();
+        if (config.isShutdownSnapshotEnabled()) {
+            snapshotQueues();
+        } else {
+            logger.info("Processing remaining tasks...");
+            drainQueue();
+        }
 
         shutdownThreadPools();
 
+        if (watchdogThread != null) {
+            watchdogThread.interrupt();
+        }
+
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+
         if (monitorThread != null) {
             monitorThread.interrupt();
         }
 
         printFinalStatistics();
 
+        // Flushes buffered task events before the final log line.
+        TaskLogger.disableAsync();
+
         logger.info("ConcurQueue system shutdown complete");
     }
 
     private void drainQueue() {
-        logger.info(String.format("Draining queue with %d remaining tasks...", taskQueue.size()));
+        logger.info(String.format("Draining queue with %d remaining tasks, %d in flight and %d waiting to retry...",
+                taskQueue.size(), tasksInFlight.get(), retryQueue.size()));
 
+        // Workers and retry workers leave by themselves once the queues are empty and nothing is in flight.
+        long startNanos = System.nanoTime();
+        draining.set(true);
+        delayedRetryQueue.expedite();
         workerPool.shutdown();
         try {
-            if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
-                logger.warning("Worker pool did not terminate within timeout");
+            if (workerPool.awaitTermination(config.getDrainTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                logger.info(String.format("Queue drained in %d ms",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            } else {
+                logger.warning(String.format("Drain did not finish within %d ms, interrupting %d tasks in flight",
+                        config.getDrainTimeoutMillis(), tasksInFlight.get()));
                 workerPool.shutdownNow();
             }
         } catch (InterruptedException e) {
@@ -261,6 +684,63 @@ public class ConcurQueueSystemApplication {
         }
     }
 
+    private void snapshotQueues() {
+        logger.info("Stopping workers for shutdown snapshot...");
+
+        // Interrupted workers and retry workers hand their current task back to a queue before exiting.
+        workerPool.shutdownNow();
+        retryWorkerPool.shutdownNow();
+        try {
+            if (!workerPool.awaitTermination(config.getShutdownGraceMillis(), TimeUnit.MILLISECONDS)
+                    || !retryWorkerPool.awaitTermination(config.getShutdownGraceMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warning("Workers did not stop within the shutdown grace period");
+            }
+        } catch (InterruptedException e) {
+            logger.warning("Interrupted while waiting for workers to stop");
+            Thread.currentThread().interrupt();
+        }
+        // Async completions outlive their workers; a failure lands on the retry queue, so it must come in before the drain.
+        int pendingCompletions = awaitPendingCompletions(config.getShutdownGraceMillis());
+
+        List<Task> mainQueueTasks = new ArrayList<>(taskQueue.size());
+        if (workStealingScheduler != null) {
+            workStealingScheduler.drainLocalTo(mainQueueTasks);
+        }
+        taskQueue.drainTo(mainQueueTasks);
+        List<Task> retryQueueTasks = new ArrayList<>(delayedRetryQueue.size());
+        delayedRetryQueue.drainAllTo(retryQueueTasks);
+
+        Path file = Path.of(config.getSnapshotFile());
+        long startNanos = System.nanoTime();
+        try {
+            new QueueSnapshot(mainQueueTasks, retryQueueTasks).writeTo(file, taskCodec);
+            logger.info(String.format("Wrote %d queued and %d retrying tasks to snapshot %s in %d ms",
+                    mainQueueTasks.size(), retryQueueTasks.size(), file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        } catch (IOException e) {
+            logger.severe(String.format("Failed to write queue snapshot %s, %d tasks lost: %s",
+                    file, mainQueueTasks.size() + retryQueueTasks.size(), e.getMessage()));
+        }
+        if (pendingCompletions > 0) {
+            logger.warning(String.format("%d async completions still pending after the snapshot; "
+                    + "any of them that fail will not be retried", pendingCompletions));
+        }
+    }
+
+    // Once workers have stopped, the in-flight count is only the asynchronous completions still pending.
+    private int awaitPendingCompletions(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            while (tasksInFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(PENDING_COMPLETION_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            logger.warning("Interrupted while waiting for async completions");
+            Thread.currentThread().interrupt();
+        }
+        return tasksInFlight.get();
+    }
+
     private void shutdownThreadPools() {
         logger.info("Shutting down thread pools...");
 
@@ -276,30 +756,127 @@ public class ConcurQueueSystemApplication {
     }
 
     private void printFinalStatistics() {
-        var statusCounts = taskStatusMap.values().stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        status -> status.name(),
-                        java.util.stream.Collectors.counting()));
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        taskStatusStore.countByStatus().forEach((status, count) -> statusCounts.put(status.name(), count));
+        long totalTracked = taskStatusStore.getTotalTracked();
 
         String finalDisplay = DisplayFormatter.createFinalStatisticsDisplay(
                 tasksProcessed.get(),
                 tasksProcessed.get() > 0 ? (double) totalProcessingTime.get() / tasksProcessed.get() : 0.0,
                 taskQueue.size(),
                 retryQueue.size(),
-                taskStatusMap.size(),
+                (int) totalTracked,
                 statusCounts
         );
 
         System.out.print(finalDisplay);
+        System.out.print(DisplayFormatter.createLatencyDisplay(latencyMetrics));
 
         logger.info("=== FINAL SYSTEM STATISTICS ===");
         logger.info(String.format("Total tasks processed: %d", tasksProcessed.get()));
         logger.info(String.format("Average processing time: %.2f ms",
                 tasksProcessed.get() > 0 ?
                         (double) totalProcessingTime.get() / tasksProcessed.get() : 0.0));
+        logger.info(String.format("Tasks expired before processing: %d", tasksExpired.get()));
+        logger.info(String.format("Tasks still in flight: %d", tasksInFlight.get()));
         logger.info(String.format("Remaining tasks in queue: %d", taskQueue.size()));
         logger.info(String.format("Tasks in retry queue: %d", retryQueue.size()));
-        logger.info(String.format("Total tasks tracked: %d", taskStatusMap.size()));
+        logger.info(String.format("Total tasks tracked: %d (%d retained, %d evicted)",
+                totalTracked, taskStatusStore.size(), taskStatusStore.getEvicted()));
+        if (workStealingScheduler != null) {
+            logger.info(String.format("Work stealing: %d local hits, %d global fetches, %d steals, %d left in local deques",
+                    workStealingScheduler.getLocalHits(),
+                    workStealingScheduler.getGlobalFetches(),
+                    workStealingScheduler.getSteals(),
+                    workStealingScheduler.getLocalQueuedCount()));
+        }
+        if (stallWatchdog != null) {
+            logger.info(String.format("Stall watchdog: %d tasks past deadline, %d workers replaced",
+                    stallWatchdog.getStalledTasks(),
+                    stallWatchdog.getReplacedWorkers()));
+        }
+        if (idempotencyCache != null) {
+            logger.info(String.format("Deduplication: %d duplicate submissions merged, %d first submissions, %d keys evicted, %d keys held",
+                    idempotencyCache.getHits(),
+                    idempotencyCache.getMisses(),
+                    idempotencyCache.getEvictions(),
+                    idempotencyCache.size()));
+        }
+        if (rateLimiters != null) {
+            for (TokenBucketRateLimiter limiter : rateLimiters.getLimiters()) {
+                logger.info(String.format("Rate limit %s (%.2f/s, burst %d, %s): %d permitted, %d throttled for %d ms, %d rejected, %d shed",
+                        limiter.getProducerName(),
+                        limiter.getSustainedPerSecond(),
+                        limiter.getBurst(),
+                        limiter.getMode(),
+                        limiter.getPermitted(),
+                        limiter.getThrottled(),
+                        limiter.getThrottledMillis(),
+                        limiter.getRejected(),
+                        limiter.getShed()));
+            }
+        }
+        if (autoscaler != null) {
+            logger.info(String.format("Autoscaler: %d scale-ups, %d scale-downs, %d workers at shutdown (%d added, %d retired)",
+                    autoscaler.getScaleUps(),
+                    autoscaler.getScaleDowns(),
+                    autoscaler.getWorkerCount(),
+                    workerRoster.getWorkersAdded(),
+                    workerRoster.getWorkersRetired()));
+        }
+        AsyncLogDispatcher asyncLog = TaskLogger.getAsyncDispatcher();
+        if (asyncLog != null) {
+            logger.info(String.format("Async logging: %d events published, %d dropped, %d still buffered",
+                    asyncLog.getPublished(), asyncLog.getDropped(), asyncLog.getBacklog()));
+        }
+        if (offHeapQueue != null) {
+            logger.info(String.format("Off-heap tasks: %d KB allocated, %d bytes still stored, %d on-heap fallbacks",
+                    offHeapQueue.getPool().getAllocatedBytes() / 1024,
+                    offHeapQueue.getPool().getStoredBytes(),
+                    offHeapQueue.getOnHeapFallbacks()));
+        }
+        if (writeAheadLog != null) {
+            logger.info(String.format("Write-ahead log (%s): %d enqueue records, %d tombstones, %d syncs, %d live",
+                    writeAheadLog.getSyncPolicy(),
+                    writeAheadLog.getEnqueueRecords(),
+                    writeAheadLog.getTombstoneRecords(),
+                    writeAheadLog.getSyncs(),
+                    writeAheadLog.getLiveRecordCount()));
+        }
+
+        logger.info("Latency by priority band (ms):");
+        for (LatencyType type : LatencyType.values()) {
+            for (PriorityBand band : PriorityBand.values()) {
+                if (latencyMetrics.getCount(type, band) == 0) {
+                    continue;
+                }
+                logger.info(String.format("  %s %s: p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f (n=%d)",
+                        type, band,
+                        latencyMetrics.getPercentileMillis(type, band, 50.0),
+                        latencyMetrics.getPercentileMillis(type, band, 90.0),
+                        latencyMetrics.getPercentileMillis(type, band, 99.0),
+                        latencyMetrics.getPercentileMillis(type, band, 99.9),
+                        latencyMetrics.getMaxMillis(type, band),
+                        latencyMetrics.getCount(type, band)));
+            }
+        }
+
+        if (priorityBucketQueue != null && config.getAgingIntervalMillis() > 0) {
+            logger.info(String.format("Priority aging: %d promotions (one level per %d ms, up to priority %d)",
+                    priorityBucketQueue.getPromotions(),
+                    config.getAgingIntervalMillis(),
+                    config.getAgingCeilingPriority()));
+        }
+        if (fairShareQueue != null) {
+            for (FairShareQueue.TenantShare share : fairShareQueue.getTenantShares()) {
+                logger.info(String.format("Fair share %s (weight %d): %d dequeued, %d still queued",
+                        share.getTenant(), share.getWeight(), share.getDequeued(), share.getQueued()));
+            }
+        }
+        logger.info("Max queue wait by original priority (ms):");
+        for (int priority = Task.MAX_PRIORITY; priority >= Task.MIN_PRIORITY; priority--) {
+            logger.info(String.format("  Priority %d: %.2f", priority, latencyMetrics.getMaxQueueWaitMillis(priority)));
+        }
 
         logger.info("Task status breakdown:");
         for (var entry : statusCounts.entrySet()) {
@@ -0,0 +1,131 @@
+package lii.concurqueuesystem.codec;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+public class BinaryTaskCodec implements TaskCodec {
+
+    private static final byte FORMAT_VERSION = 3;
+    // Older records, written before tasks had idempotency keys or deadlines, are still read from old logs and snapshots.
+    private static final byte FORMAT_VERSION_NO_KEY = 2;
+    private static final byte FORMAT_VERSION_NO_DEADLINE = 1;
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+    private static final short NO_KEY = -1;
+    private static final int FIXED_SIZE = 1 + 8 + 8 + 1 + 1 + 8 + 8 + 2 + 2 + 4;
+    private static final int NAME_LENGTH_OFFSET = 1 + 8 + 8 + 1 + 1 + 8 + 8;
+
+    @Override
+    public int encodedSize(Task task) {
+        return FIXED_SIZE + utf8Length(task.getName()) + utf8Length(task.getIdempotencyKey())
+                + utf8Length(task.getPayload());
+    }
+
+    @Override
+    public void encode(Task task, ByteBuffer target) {
+        byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] key = task.hasIdempotencyKey() ? task.getIdempotencyKey().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] payload = task.getPayload() == null ? new byte[0] : task.getPayload().getBytes(StandardCharsets.UTF_8);
+        if (name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Task name too long to encode: " + name.length + " bytes");
+        }
+        if (key != null && key.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Idempotency key too long to encode: " + key.length + " bytes");
+        }
+
+        target.put(FORMAT_VERSION);
+        target.putLong(task.getId().getMostSignificantBits());
+        target.putLong(task.getId().getLeastSignificantBits());
+        target.put((byte) task.getPriority());
+        target.put((byte) task.getRetryCount());
+        target.putLong(task.getCreatedTimestamp().toEpochMilli());
+        target.putLong(task.hasDeadline() ? task.getDeadline().toEpochMilli() : NO_DEADLINE);
+        target.putShort((short) name.length);
+        target.put(name);
+        target.putShort(key == null ? NO_KEY : (short) key.length);
+        if (key != null) {
+            target.put(key);
+        }
+        target.putInt(payload.length);
+        target.put(payload);
+    }
+
+    @Override
+    public Task decode(ByteBuffer source) {
+        try {
+            byte version = checkVersion(source.get());
+            UUID id = new UUID(source.getLong(), source.getLong());
+            int priority = source.get();
+            int retryCount = source.get();
+            Instant created = Instant.ofEpochMilli(source.getLong());
+            long deadlineMillis = version != FORMAT_VERSION_NO_DEADLINE ? source.getLong() : NO_DEADLINE;
+            String name = readString(source, source.getShort());
+            short keyLength = version == FORMAT_VERSION ? source.getShort() : NO_KEY;
+            String key = keyLength == NO_KEY ? null : readString(source, keyLength);
+            String payload = readString(source, source.getInt());
+            return new Task(id, name, priority, created, payload, retryCount,
+                    deadlineMillis == NO_DEADLINE ? null : Instant.ofEpochMilli(deadlineMillis), key);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated task encoding", e);
+        }
+    }
+
+    @Override
+    public String decodeName(ByteBuffer source) {
+        try {
+            int start = source.position();
+            byte version = checkVersion(source.get(start));
+            int at = start + NAME_LENGTH_OFFSET - (version == FORMAT_VERSION_NO_DEADLINE ? 8 : 0);
+            int length = source.getShort(at);
+            if (length < 0 || length > source.limit() - at - 2) {
+                throw new IllegalArgumentException("Invalid encoded string length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            source.get(at + 2, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated task encoding", e);
+        }
+    }
+
+    private static byte checkVersion(byte version) {
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_NO_KEY && version != FORMAT_VERSION_NO_DEADLINE) {
+            throw new IllegalArgumentException("Unsupported task encoding version: " + version);
+        }
+        return version;
+    }
+
+    private static String readString(ByteBuffer source, int length) {
+        if (length < 0 || length > source.remaining()) {
+            throw new IllegalArgumentException("Invalid encoded string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,132 @@
+package lii.concurqueuesystem.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DirectBufferPool {
+
+    public static final long NO_SLOT = -1L;
+
+    private static final int MIN_SLOT_SHIFT = 6;
+    private static final int MAX_SLOT_SHIFT = 12;
+    private static final int SLOT_INDEX_BITS = 48;
+
+    private final int slabBytes;
+    private final SizeClass[] sizeClasses;
+    private final LongAdder allocatedBytes;
+    private final LongAdder storedBytes;
+
+    public DirectBufferPool(int slabBytes) {
+        if (slabBytes < (1 << MAX_SLOT_SHIFT)) {
+            throw new IllegalArgumentException("Slab size must be at least " + (1 << MAX_SLOT_SHIFT) + " bytes: " + slabBytes);
+        }
+        this.slabBytes = slabBytes;
+        // A class at each power of two and one halfway up to the next, so a slot wastes at most a third of itself.
+        this.sizeClasses = new SizeClass[(MAX_SLOT_SHIFT - MIN_SLOT_SHIFT) * 2 + 1];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            int power = 1 << (MIN_SLOT_SHIFT + i / 2);
+            sizeClasses[i] = new SizeClass(i % 2 == 0 ? power : power + power / 2);
+        }
+        this.allocatedBytes = new LongAdder();
+        this.storedBytes = new LongAdder();
+    }
+
+    public int getMaxSlotBytes() {
+        return 1 << MAX_SLOT_SHIFT;
+    }
+
+    // Returns a slot of at least length bytes, or NO_SLOT when length is over the largest size class.
+    public long reserve(int length) {
+        int classIndex = classIndexFor(length);
+        if (classIndex < 0) {
+            return NO_SLOT;
+        }
+        int slot = sizeClasses[classIndex].acquire();
+        storedBytes.add(length);
+        return ((long) classIndex << SLOT_INDEX_BITS) | slot;
+    }
+
+    // A window onto the first length bytes of the slot; it shares the slab's memory and is only valid until release.
+    public ByteBuffer view(long handle, int length) {
+        SizeClass sizeClass = sizeClasses[(int) (handle >>> SLOT_INDEX_BITS)];
+        int slot = (int) handle;
+        return sizeClass.slab(slot).slice(sizeClass.offset(slot), length);
+    }
+
+    public void release(long handle, int length) {
+        sizeClasses[(int) (handle >>> SLOT_INDEX_BITS)].free((int) handle);
+        storedBytes.add(-length);
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+
+    private int classIndexFor(int length) {
+        int shift = Math.max(MIN_SLOT_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, length) - 1));
+        if (shift > MAX_SLOT_SHIFT) {
+            return -1;
+        }
+        int index = (shift - MIN_SLOT_SHIFT) * 2;
+        // Lengths that fit three quarters of the power of two take the halfway class below it.
+        return index > 0 && length <= 3 << (shift - 2) ? index - 1 : index;
+    }
+
+    private final class SizeClass {
+        private final int slotBytes;
+        private final int slotsPerSlab;
+        private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+        private int[] freeSlots = new int[64];
+        private int freeCount;
+
+        private SizeClass(int slotBytes) {
+            this.slotBytes = slotBytes;
+            this.slotsPerSlab = slabBytes / slotBytes;
+        }
+
+        private synchronized int acquire() {
+            if (freeCount == 0) {
+                grow();
+            }
+            return freeSlots[--freeCount];
+        }
+
+        private synchronized void free(int slot) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+
+        private void grow() {
+            ByteBuffer[] current = slabs;
+            int base = current.length * slotsPerSlab;
+            ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = ByteBuffer.allocateDirect(slabBytes);
+            // Publish the slab before any of its slots can be handed out.
+            slabs = grown;
+            allocatedBytes.add(slabBytes);
+
+            if (freeSlots.length < slotsPerSlab) {
+                freeSlots = Arrays.copyOf(freeSlots, slotsPerSlab);
+            }
+            // Push in reverse so slots are handed out in address order.
+            for (int i = slotsPerSlab - 1; i >= 0; i--) {
+                freeSlots[freeCount++] = base + i;
+            }
+        }
+
+        private ByteBuffer slab(int slot) {
+            return slabs[slot / slotsPerSlab];
+        }
+
+        private int offset(int slot) {
+            return (slot % slotsPerSlab) * slotBytes;
+        }
+    }
+}
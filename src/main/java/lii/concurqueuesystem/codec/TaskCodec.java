@@ -0,0 +1,20 @@
+package lii.concurqueuesystem.codec;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.nio.ByteBuffer;
+
+public interface TaskCodec {
+
+    int encodedSize(Task task);
+
+    void encode(Task task, ByteBuffer target);
+
+    Task decode(ByteBuffer source);
+
+    // Fair-share queues route by name while a task waits in its encoded form, so a codec that can find the name
+    // without a full decode should override this. Unlike decode, it leaves the source's position where it was.
+    default String decodeName(ByteBuffer source) {
+        return decode(source.duplicate()).getName();
+    }
+}
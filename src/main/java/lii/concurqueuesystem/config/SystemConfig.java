@@ -0,0 +1,87 @@
+package lii.concurqueuesystem.config;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.enums.MetricsExportMode;
+import lii.concurqueuesystem.enums.QueueType;
+import lii.concurqueuesystem.enums.RateLimitMode;
+import lii.concurqueuesystem.enums.SyncPolicy;
+import lii.concurqueuesystem.enums.WorkerMode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class SystemConfig {
+
+    private int workerPoolSize = 5;
+    private int retryWorkerCount = 1;
+    private int workerBatchSize = 1;
+    private long workerBatchLingerMillis = 0;
+    private int asyncHandlerMaxInFlight = 64;
+    private WorkerMode workerMode = WorkerMode.PLATFORM_POOL;
+    private int virtualThreadConcurrency = 1000;
+    private int workStealingRefillBatch = 8;
+    private int workStealingGlobalCheckInterval = 16;
+    private boolean autoscalingEnabled = true;
+    private int autoscaleMinWorkers = 2;
+    private int autoscaleMaxWorkers = 12;
+    private long autoscaleIntervalMillis = 1000;
+    private long autoscaleCooldownMillis = 5000;
+    private int autoscaleScaleUpDepthPerWorker = 4;
+    private int autoscaleScaleDownDepthPerWorker = 1;
+    private long autoscaleScaleUpQueueWaitMillis = 3000;
+    private double autoscaleScaleDownUtilization = 0.5;
+    private int autoscaleScaleUpSamples = 2;
+    private int autoscaleScaleDownSamples = 10;
+    private boolean stallDetectionEnabled = true;
+    private long stallDeadlineHighMillis = 15000;
+    private long stallDeadlineMediumMillis = 9000;
+    private long stallDeadlineLowMillis = 4500;
+    private long stallCheckIntervalMillis = 1000;
+    private int queueCapacity = 50;
+    private QueueType queueType = QueueType.PRIORITY_BUCKETS;
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.BLOCK;
+    private long agingIntervalMillis = 3000;
+    private int agingCeilingPriority = 10;
+    private Map<String, Integer> fairShareWeights = new HashMap<>();
+    private int fairShareDefaultWeight = 1;
+    private long admissionTimeoutMillis = 2000;
+    private long taskTimeToLiveMillis = 0;
+    private boolean deduplicationEnabled = true;
+    private long deduplicationWindowMillis = 60000;
+    private int deduplicationMaxKeys = 10000;
+    private double duplicateSubmissionRate = 0.0;
+    private boolean rateLimitingEnabled = true;
+    private RateLimitMode rateLimitMode = RateLimitMode.BLOCK;
+    private double producerRatePerSecond = 2.0;
+    private int producerBurst = 10;
+    private long retryBaseDelayMillis = 2000;
+    private double retryBackoffMultiplier = 2.0;
+    private long retryMaxDelayMillis = 30000;
+    private double retryJitterRatio = 0.2;
+    private boolean asyncLogging = false;
+    private int asyncLogBufferSize = 8192;
+    private MetricsExportMode metricsExportMode = MetricsExportMode.NDJSON_STREAM;
+    private long metricsIntervalMillis = 5000;
+    private String metricsDirectory = "metrics";
+    private long metricsMaxFileBytes = 16 * 1024 * 1024;
+    private long metricsRollIntervalMillis = 3600000;
+    private int metricsMaxFiles = 24;
+    private long statusRetentionMillis = 300000;
+    private int statusMaxTerminalEntries = 100000;
+    private boolean persistenceEnabled = false;
+    private String walDirectory = "wal";
+    private int walSegmentBytes = 16 * 1024 * 1024;
+    private SyncPolicy walSyncPolicy = SyncPolicy.GROUP_COMMIT;
+    private long walSyncIntervalMillis = 10;
+    private boolean offHeapPayloads = false;
+    private int offHeapSlabBytes = 1024 * 1024;
+    private boolean shutdownSnapshotEnabled = false;
+    private String snapshotFile = "concur_queue_snapshot.bin";
+    private long shutdownGraceMillis = 2000;
+    private long drainTimeoutMillis = 30000;
+
+}
@@ -1,22 +1,42 @@
 package lii.concurqueuesystem.consumer;
 
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.logging.TaskLogger;
 import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.status.TaskStatusStore;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 public class RetryWorker implements Runnable {
 
     private static final Logger logger = Logger.getLogger(RetryWorker.class.getName());
-    private static final long RETRY_DELAY_MS = 2000;
+    private static final TaskLogger taskLogger = new TaskLogger(RetryWorker.class);
+    private static final long IDLE_POLL_MILLIS = 250;
 
     private final BlockingQueue<Task> retryQueue;
     private final BlockingQueue<Task> mainQueue;
+    private final TaskStatusStore taskStatusStore;
+    private final AtomicInteger tasksExpired;
+    private final AtomicInteger tasksInFlight;
+    private final AtomicBoolean draining;
     private final String workerName;
 
-    public RetryWorker(BlockingQueue<Task> retryQueue, BlockingQueue<Task> mainQueue) {
+    public RetryWorker(BlockingQueue<Task> retryQueue,
+                       BlockingQueue<Task> mainQueue,
+                       TaskStatusStore taskStatusStore,
+                       AtomicInteger tasksExpired,
+                       AtomicInteger tasksInFlight,
+                       AtomicBoolean draining) {
         this.retryQueue = retryQueue;
         this.mainQueue = mainQueue;
+        this.taskStatusStore = taskStatusStore;
+        this.tasksExpired = tasksExpired;
+        this.tasksInFlight = tasksInFlight;
+        this.draining = draining;
         this.workerName = Thread.currentThread().getName();
     }
 
@@ -26,11 +46,33 @@ public class RetryWorker implements Runnable {
 
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                Task retryTask = retryQueue.take();
+                Task retryTask = retryQueue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (retryTask == null) {
+                    // Workers may still fail tasks into this queue until nothing is left in flight.
+                    if (draining.get() && tasksInFlight.get() == 0 && retryQueue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
 
-                Thread.sleep(RETRY_DELAY_MS);
+                if (retryTask.isExpired()) {
+                    taskStatusStore.put(retryTask.getId(), TaskStatus.EXPIRED);
+                    tasksExpired.incrementAndGet();
+                    tasksInFlight.decrementAndGet();
+                    taskLogger.logTaskExpired("Retry worker " + workerName, retryTask.getName(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - retryTask.getDeadlineNanos()));
+                    continue;
+                }
 
-                mainQueue.put(retryTask);
+                retryTask.markEnqueued();
+                try {
+                    mainQueue.put(retryTask);
+                } catch (InterruptedException e) {
+                    // Hand the task back so a shutdown snapshot still sees it.
+                    retryQueue.offer(retryTask);
+                    throw e;
+                }
+                tasksInFlight.decrementAndGet();
 
                 logger.info(String.format("Retry worker %s requeued task %s for retry attempt %d",
                         workerName, retryTask.getName(), retryTask.getRetryCount()));
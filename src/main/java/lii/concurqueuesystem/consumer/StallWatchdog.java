@@ -0,0 +1,123 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.enums.PriorityBand;
+import lii.concurqueuesystem.logging.TaskLogger;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StallWatchdog implements Runnable {
+
+    private static final TaskLogger taskLogger = new TaskLogger(StallWatchdog.class);
+
+    private final long[] deadlineNanos;
+    private final long checkIntervalMillis;
+    private final WorkerRoster workerRoster;
+    private final LongAdder stalledTasks;
+    private final LongAdder replacedWorkers;
+
+    public StallWatchdog(long highDeadlineMillis,
+                         long mediumDeadlineMillis,
+                         long lowDeadlineMillis,
+                         long checkIntervalMillis,
+                         WorkerRoster workerRoster) {
+        if (highDeadlineMillis <= 0 || mediumDeadlineMillis <= 0 || lowDeadlineMillis <= 0) {
+            throw new IllegalArgumentException("Stall deadlines must be positive");
+        }
+        if (checkIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Stall check interval must be positive: " + checkIntervalMillis);
+        }
+        this.deadlineNanos = new long[PriorityBand.values().length];
+        this.deadlineNanos[PriorityBand.HIGH.ordinal()] = TimeUnit.MILLISECONDS.toNanos(highDeadlineMillis);
+        this.deadlineNanos[PriorityBand.MEDIUM.ordinal()] = TimeUnit.MILLISECONDS.toNanos(mediumDeadlineMillis);
+        this.deadlineNanos[PriorityBand.LOW.ordinal()] = TimeUnit.MILLISECONDS.toNanos(lowDeadlineMillis);
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.workerRoster = workerRoster;
+        this.stalledTasks = new LongAdder();
+        this.replacedWorkers = new LongAdder();
+    }
+
+    @Override
+    public void run() {
+        taskLogger.logSystemEvent(String.format("Stall watchdog started, checking every %d ms", checkIntervalMillis));
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(checkIntervalMillis);
+                checkHeartbeats();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                taskLogger.logSystemError("Stall watchdog encountered unexpected error: " + e.getMessage());
+            }
+        }
+
+        taskLogger.logSystemEvent("Stall watchdog shutting down");
+    }
+
+    void checkHeartbeats() {
+        long now = System.nanoTime();
+        for (WorkerHeartbeat heartbeat : workerRoster.getHeartbeats()) {
+            Task task = heartbeat.getCurrentTask();
+            if (task == null) {
+                continue;
+            }
+            long elapsedNanos = now - heartbeat.getTaskStartNanos();
+            long deadline = deadlineNanos[PriorityBand.of(task.getPriority()).ordinal()];
+            // Claiming first means a handler that returns late cannot also complete or requeue the task.
+            if (elapsedNanos <= deadline || !heartbeat.claim(task)) {
+                continue;
+            }
+
+            stalledTasks.increment();
+            taskLogger.logSystemWarning(String.format(
+                    "Task %s on %s exceeded its %d ms deadline (running %d ms, last heartbeat %d ms ago)",
+                    task.getName(), heartbeat.getThread().getName(),
+                    TimeUnit.NANOSECONDS.toMillis(deadline),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(now - heartbeat.getLastBeatNanos())));
+
+            heartbeat.getWorker().failStalledTask(task, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+            // The stuck thread keeps its pool slot until it returns, so the replacement gets a new one.
+            if (heartbeat.isReplaceable() && workerRoster.retire(heartbeat)
+                    && workerRoster.addWorker(heartbeat.getWorker().newReplacement())) {
+                replacedWorkers.increment();
+                taskLogger.logSystemEvent(String.format("Started a replacement for stalled worker %s",
+                        heartbeat.getThread().getName()));
+            }
+            heartbeat.getThread().interrupt();
+        }
+    }
+
+    public int getInFlightCount() {
+        int inFlight = 0;
+        for (WorkerHeartbeat heartbeat : workerRoster.getHeartbeats()) {
+            if (heartbeat.getCurrentTask() != null) {
+                inFlight++;
+            }
+        }
+        return inFlight;
+    }
+
+    public long getOldestInFlightMillis() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (WorkerHeartbeat heartbeat : workerRoster.getHeartbeats()) {
+            if (heartbeat.getCurrentTask() != null) {
+                oldest = Math.max(oldest, now - heartbeat.getTaskStartNanos());
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(oldest);
+    }
+
+    public long getStalledTasks() {
+        return stalledTasks.sum();
+    }
+
+    public long getReplacedWorkers() {
+        return replacedWorkers.sum();
+    }
+}
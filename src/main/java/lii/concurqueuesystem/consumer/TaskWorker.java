@@ -1,15 +1,25 @@
 package lii.concurqueuesystem.consumer;
 
+import lii.concurqueuesystem.enums.LatencyType;
 import lii.concurqueuesystem.enums.TaskStatus;
 import lii.concurqueuesystem.exception.TaskProcessingException;
+import lii.concurqueuesystem.handler.TaskHandlerRegistry;
 import lii.concurqueuesystem.logging.TaskLogger;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
 import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.status.TaskStatusStore;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,40 +27,131 @@ public class TaskWorker implements Runnable {
 
     private static final TaskLogger taskLogger = new TaskLogger(TaskWorker.class);
     private static final int MAX_RETRIES = 3;
-    private static final double FAILURE_PROBABILITY = 0.15;
+    private static final long ASYNC_PENDING = -2;
+    // How long an idle worker waits before rechecking whether it has been retired.
+    private static final long IDLE_POLL_MILLIS = 250;
 
     private final BlockingQueue<Task> taskQueue;
     private final BlockingQueue<Task> retryQueue;
-    private final ConcurrentHashMap<String, TaskStatus> taskStatusMap;
+    private final TaskStatusStore taskStatusStore;
     private final AtomicInteger tasksProcessed;
     private final AtomicLong totalProcessingTime;
-    private final Random random;
+    private final AtomicInteger tasksExpired;
+    private final AtomicInteger tasksInFlight;
+    private final AtomicBoolean draining;
+    private final LatencyMetrics latencyMetrics;
+    private final TaskHandlerRegistry handlerRegistry;
+    private final int maxAsyncInFlight;
+    private final Semaphore asyncPermits;
+    private final WorkerRoster workerRoster;
     private final String workerName;
+    private final int batchSize;
+    private final long batchLingerNanos;
 
     String currentWorkerName = Thread.currentThread().getName();
 
     public TaskWorker(BlockingQueue<Task> taskQueue,
                       BlockingQueue<Task> retryQueue,
-                      ConcurrentHashMap<String, TaskStatus> taskStatusMap,
+                      TaskStatusStore taskStatusStore,
                       AtomicInteger tasksProcessed,
-                      AtomicLong totalProcessingTime) {
+                      AtomicLong totalProcessingTime,
+                      AtomicInteger tasksExpired,
+                      AtomicInteger tasksInFlight,
+                      AtomicBoolean draining,
+                      LatencyMetrics latencyMetrics,
+                      TaskHandlerRegistry handlerRegistry,
+                      int maxAsyncInFlight,
+                      WorkerRoster workerRoster) {
+        this(taskQueue, retryQueue, taskStatusStore, tasksProcessed, totalProcessingTime, tasksExpired,
+                tasksInFlight, draining, latencyMetrics, handlerRegistry, maxAsyncInFlight, 1, 0, workerRoster);
+    }
+
+    public TaskWorker(BlockingQueue<Task> taskQueue,
+                      BlockingQueue<Task> retryQueue,
+                      TaskStatusStore taskStatusStore,
+                      AtomicInteger tasksProcessed,
+                      AtomicLong totalProcessingTime,
+                      AtomicInteger tasksExpired,
+                      AtomicInteger tasksInFlight,
+                      AtomicBoolean draining,
+                      LatencyMetrics latencyMetrics,
+                      TaskHandlerRegistry handlerRegistry,
+                      int maxAsyncInFlight,
+                      int batchSize,
+                      long batchLingerMillis,
+                      WorkerRoster workerRoster) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Worker batch size must be at least 1: " + batchSize);
+        }
+        if (maxAsyncInFlight < 1) {
+            throw new IllegalArgumentException("Async in-flight limit must be at least 1: " + maxAsyncInFlight);
+        }
         this.taskQueue = taskQueue;
         this.retryQueue = retryQueue;
-        this.taskStatusMap = taskStatusMap;
+        this.taskStatusStore = taskStatusStore;
         this.tasksProcessed = tasksProcessed;
         this.totalProcessingTime = totalProcessingTime;
-        this.random = new Random();
+        this.tasksExpired = tasksExpired;
+        this.tasksInFlight = tasksInFlight;
+        this.draining = draining;
+        this.latencyMetrics = latencyMetrics;
+        this.handlerRegistry = handlerRegistry;
+        this.maxAsyncInFlight = maxAsyncInFlight;
+        this.asyncPermits = new Semaphore(maxAsyncInFlight);
+        this.workerRoster = workerRoster;
         this.workerName = currentWorkerName;
+        this.batchSize = batchSize;
+        this.batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(batchLingerMillis);
+    }
+
+    private TaskWorker(TaskWorker stalled) {
+        this.taskQueue = stalled.taskQueue;
+        this.retryQueue = stalled.retryQueue;
+        this.taskStatusStore = stalled.taskStatusStore;
+        this.tasksProcessed = stalled.tasksProcessed;
+        this.totalProcessingTime = stalled.totalProcessingTime;
+        this.tasksExpired = stalled.tasksExpired;
+        this.tasksInFlight = stalled.tasksInFlight;
+        this.draining = stalled.draining;
+        this.latencyMetrics = stalled.latencyMetrics;
+        this.handlerRegistry = stalled.handlerRegistry;
+        this.maxAsyncInFlight = stalled.maxAsyncInFlight;
+        this.asyncPermits = new Semaphore(stalled.maxAsyncInFlight);
+        this.workerRoster = stalled.workerRoster;
+        this.workerName = stalled.workerName;
+        this.batchSize = stalled.batchSize;
+        this.batchLingerNanos = stalled.batchLingerNanos;
+    }
+
+    TaskWorker newReplacement() {
+        return new TaskWorker(this);
     }
 
     @Override
     public void run() {
         taskLogger.logSystemEvent(String.format("Worker %s started", workerName));
 
-        while (!Thread.currentThread().isInterrupted()) {
+        WorkerHeartbeat heartbeat = register(true);
+        while (!Thread.currentThread().isInterrupted() && !heartbeat.isRetired()) {
             try {
-                Task task = taskQueue.take();
-                processTask(task);
+                heartbeat.beat();
+                if (batchSize == 1) {
+                    Task task = taskQueue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        tasksInFlight.incrementAndGet();
+                        processTask(task, heartbeat);
+                    } else if (isDrained()) {
+                        break;
+                    }
+                } else {
+                    List<Task> batch = nextBatch();
+                    if (!batch.isEmpty()) {
+                        tasksInFlight.addAndGet(batch.size());
+                        processBatch(batch, heartbeat);
+                    } else if (isDrained()) {
+                        break;
+                    }
+                }
 
             } catch (InterruptedException e) {
                 taskLogger.logSystemEvent(String.format("Worker %s interrupted", workerName));
@@ -61,79 +162,281 @@ public class TaskWorker implements Runnable {
                         workerName, e.getMessage()));
             }
         }
+        unregister(heartbeat);
 
         taskLogger.logSystemEvent(String.format("Worker %s shutting down", workerName));
     }
 
-    private void processTask(Task task) {
-        String taskId = task.getId().toString();
-        Instant startTime = Instant.now();
+    // Only checked after an empty poll. A failure still in flight may yet come back through the retry queue,
+    // so workers wait for the count to reach zero rather than just for their own queue to empty.
+    private boolean isDrained() {
+        return draining.get() && tasksInFlight.get() == 0 && taskQueue.isEmpty();
+    }
 
-        try {
-            taskStatusMap.put(taskId, TaskStatus.PROCESSING);
-            taskLogger.logTaskProcessing(workerName, task.getName());
+    private WorkerHeartbeat register(boolean replaceable) {
+        WorkerHeartbeat heartbeat = new WorkerHeartbeat(this, Thread.currentThread(), replaceable);
+        if (workerRoster != null) {
+            workerRoster.register(heartbeat);
+        }
+        return heartbeat;
+    }
 
-            long processingTime = calculateProcessingTime(task);
-            Thread.sleep(processingTime);
+    private void unregister(WorkerHeartbeat heartbeat) {
+        if (workerRoster != null) {
+            workerRoster.unregister(heartbeat);
+        }
+    }
 
-            if (shouldSimulateFailure()) {
-                throw new TaskProcessingException("Simulated processing failure");
+    private List<Task> nextBatch() throws InterruptedException {
+        Task first = taskQueue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        List<Task> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        taskQueue.drainTo(batch, batchSize - 1);
+
+        long deadline = System.nanoTime() + batchLingerNanos;
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
             }
+            Task next = taskQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            taskQueue.drainTo(batch, batchSize - batch.size());
+        }
+        return batch;
+    }
 
-            taskStatusMap.put(taskId, TaskStatus.COMPLETED);
+    private void processBatch(List<Task> batch, WorkerHeartbeat heartbeat) {
+        int expired = batch.size();
+        batch.removeIf(this::expireIfOverdue);
+        expired -= batch.size();
+        if (expired > 0) {
+            tasksInFlight.addAndGet(-expired);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        taskStatusStore.putAll(batch, TaskStatus.PROCESSING);
+        List<Task> completedTasks = new ArrayList<>(batch.size());
+
+        int completed = 0;
+        long batchProcessingTime = 0;
+        int index = 0;
+        try {
+            for (; index < batch.size() && !Thread.currentThread().isInterrupted() && !heartbeat.isRetired(); index++) {
+                Task task = batch.get(index);
+                long processingTime = executeTask(task, heartbeat);
+                if (processingTime >= 0) {
+                    completedTasks.add(task);
+                    completed++;
+                    batchProcessingTime += processingTime;
+                }
+            }
+        } finally {
+            taskStatusStore.putAll(completedTasks, TaskStatus.COMPLETED);
+            tasksInFlight.addAndGet(-completed);
+            tasksProcessed.addAndGet(completed);
+            totalProcessingTime.addAndGet(batchProcessingTime);
+            returnUnprocessed(batch.subList(index, batch.size()));
+        }
+    }
+
+    private void returnUnprocessed(List<Task> unprocessed) {
+        tasksInFlight.addAndGet(-unprocessed.size());
+        for (Task task : unprocessed) {
+            if (taskQueue.offer(task)) {
+                taskStatusStore.put(task.getId(), TaskStatus.SUBMITTED);
+            } else {
+                taskStatusStore.put(task.getId(), TaskStatus.DROPPED);
+                taskLogger.logSystemWarning(String.format("Worker %s could not return task %s to the queue",
+                        workerName, task.getName()));
+            }
+        }
+    }
+
+    void processTask(Task task) {
+        // Virtual threads run one task each, so a stalled one is interrupted but never replaced.
+        WorkerHeartbeat heartbeat = register(false);
+        try {
+            processTask(task, heartbeat);
+        } finally {
+            unregister(heartbeat);
+        }
+    }
+
+    private void processTask(Task task, WorkerHeartbeat heartbeat) {
+        if (expireIfOverdue(task)) {
+            tasksInFlight.decrementAndGet();
+            return;
+        }
+        UUID taskId = task.getId();
+        taskStatusStore.put(taskId, TaskStatus.PROCESSING);
+
+        long processingTime = executeTask(task, heartbeat);
+        if (processingTime >= 0) {
+            taskStatusStore.put(taskId, TaskStatus.COMPLETED);
+            tasksInFlight.decrementAndGet();
             tasksProcessed.incrementAndGet();
+            totalProcessingTime.addAndGet(processingTime);
+        }
+    }
 
-            long actualProcessingTime = Duration.between(startTime, Instant.now()).toMillis();
-            totalProcessingTime.addAndGet(actualProcessingTime);
+    private boolean expireIfOverdue(Task task) {
+        if (!task.isExpired()) {
+            return false;
+        }
+        taskStatusStore.put(task.getId(), TaskStatus.EXPIRED);
+        tasksExpired.incrementAndGet();
+        taskLogger.logTaskExpired("Worker " + workerName, task.getName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.getDeadlineNanos()));
+        return true;
+    }
 
-            taskLogger.logTaskSuccess(workerName, task.getName(), actualProcessingTime);
+    private long executeTask(Task task, WorkerHeartbeat heartbeat) {
+        UUID taskId = task.getId();
+        Instant startTime = Instant.now();
+        long startNanos = System.nanoTime();
+        latencyMetrics.record(LatencyType.QUEUE_WAIT, task.getPriority(), startNanos - task.getEnqueuedNanos());
+
+        boolean watched = false;
+        try {
+            taskLogger.logTaskProcessing(workerName, task.getName());
+
+            heartbeat.begin(task);
+            watched = true;
+            CompletableFuture<Void> completion = handlerRegistry.resolve(task).handle(task);
+
+            if (completion != null && !completion.isDone()) {
+                // Pending completions no longer occupy this thread; the permits bound them instead of the watchdog.
+                // Only they take a permit, and a worker holding none to spare waits here before taking more work.
+                if (!heartbeat.finish(task)) {
+                    return -1;
+                }
+                boolean permitHeld = acquireAsyncPermit();
+                completion.whenComplete((ignored, error) -> {
+                    try {
+                        if (error == null) {
+                            long processingTime = completeTask(task, startTime, startNanos);
+                            taskStatusStore.put(taskId, TaskStatus.COMPLETED);
+                            tasksInFlight.decrementAndGet();
+                            tasksProcessed.incrementAndGet();
+                            totalProcessingTime.addAndGet(processingTime);
+                        } else {
+                            handleTaskFailure(task, unwrap(error));
+                        }
+                    } finally {
+                        if (permitHeld) {
+                            asyncPermits.release();
+                        }
+                    }
+                });
+                return ASYNC_PENDING;
+            }
+
+            if (completion != null) {
+                completion.join();
+            }
+            if (!heartbeat.finish(task)) {
+                logDiscardedResult(task);
+                return -1;
+            }
+            return completeTask(task, startTime, startNanos);
 
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (watched && !heartbeat.finish(task)) {
+                // The watchdog interrupted us and has already sent the task down the retry path.
+                return -1;
+            }
             taskLogger.logSystemEvent(String.format("Worker %s interrupted while processing task %s",
                     workerName, task.getName()));
-            taskStatusMap.put(taskId, TaskStatus.FAILED);
-            Thread.currentThread().interrupt();
+            if (taskQueue.offer(task)) {
+                taskStatusStore.put(taskId, TaskStatus.SUBMITTED);
+            } else {
+                taskStatusStore.put(taskId, TaskStatus.FAILED);
+            }
+            tasksInFlight.decrementAndGet();
+
+        } catch (CompletionException e) {
+            if (!watched || heartbeat.finish(task)) {
+                handleTaskFailure(task, unwrap(e));
+            } else {
+                logDiscardedResult(task);
+            }
+        } catch (Exception e) {
+            if (!watched || heartbeat.finish(task)) {
+                handleTaskFailure(task, e);
+            } else {
+                logDiscardedResult(task);
+            }
+        }
+        return -1;
+    }
 
-        } catch (TaskProcessingException e) {
-            handleTaskFailure(task, e);
+    // An interrupted worker still hands the completion its outcome handling, just without a permit.
+    private boolean acquireAsyncPermit() {
+        try {
+            asyncPermits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
-    private void handleTaskFailure(Task task, Exception e) {
-        String taskId = task.getId().toString();
+    private long completeTask(Task task, Instant startTime, long startNanos) {
+        long actualProcessingTime = Duration.between(startTime, Instant.now()).toMillis();
+        long finishedNanos = System.nanoTime();
+        latencyMetrics.record(LatencyType.SERVICE, task.getPriority(), finishedNanos - startNanos);
+        latencyMetrics.record(LatencyType.END_TO_END, task.getPriority(), finishedNanos - task.getCreatedNanos());
+
+        taskLogger.logTaskSuccess(workerName, task.getName(), actualProcessingTime);
+        return actualProcessingTime;
+    }
+
+    private void logDiscardedResult(Task task) {
+        taskLogger.logSystemWarning(String.format("Worker %s finished stalled task %s after it was requeued; result discarded",
+                workerName, task.getName()));
+    }
+
+    void failStalledTask(Task task, long elapsedMillis) {
+        handleTaskFailure(task, new TaskProcessingException(
+                String.format("Stalled for %d ms and was taken back by the watchdog", elapsedMillis)));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private void handleTaskFailure(Task task, Throwable e) {
+        UUID taskId = task.getId();
 
         taskLogger.logTaskFailure(workerName, task.getName(), e.getMessage());
 
+        // A retry stays in flight until the retry worker has put it back on the main queue.
         if (task.getRetryCount() < MAX_RETRIES) {
             Task retryTask = new Task(task);
-            taskStatusMap.put(taskId, TaskStatus.RETRY);
+            taskStatusStore.put(taskId, TaskStatus.RETRY);
 
             try {
                 retryQueue.put(retryTask);
                 taskLogger.logTaskRetry(task.getName(), retryTask.getRetryCount(), MAX_RETRIES);
             } catch (InterruptedException ie) {
                 taskLogger.logSystemError(String.format("Failed to queue retry for task %s", task.getName()));
-                taskStatusMap.put(taskId, TaskStatus.FAILED);
+                taskStatusStore.put(taskId, TaskStatus.FAILED);
+                tasksInFlight.decrementAndGet();
                 Thread.currentThread().interrupt();
             }
         } else {
-            taskStatusMap.put(taskId, TaskStatus.ABANDONED);
+            taskStatusStore.put(taskId, TaskStatus.ABANDONED);
+            tasksInFlight.decrementAndGet();
             taskLogger.logTaskAbandoned(task.getName(), MAX_RETRIES);
         }
     }
-
-    private long calculateProcessingTime(Task task) {
-        int priority = task.getPriority();
-        if (priority >= 8) {
-            return 2000 + random.nextInt(3000);
-        } else if (priority >= 4) {
-            return 1000 + random.nextInt(2000);
-        } else {
-            return 500 + random.nextInt(1000);
-        }
-    }
-
-    private boolean shouldSimulateFailure() {
-        return random.nextDouble() < FAILURE_PROBABILITY;
-    }
-}
\ No newline at end of file
+}
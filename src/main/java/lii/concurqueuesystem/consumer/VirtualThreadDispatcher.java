@@ -0,0 +1,106 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.logging.TaskLogger;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualThreadDispatcher implements Runnable {
+
+    private static final TaskLogger taskLogger = new TaskLogger(VirtualThreadDispatcher.class);
+    private static final long TERMINATION_TIMEOUT_SECONDS = 5;
+    private static final long IDLE_POLL_MILLIS = 250;
+
+    private final BlockingQueue<Task> taskQueue;
+    private final TaskWorker taskWorker;
+    private final int concurrencyLimit;
+    private final Semaphore permits;
+    private final AtomicInteger peakInFlight;
+    private final AtomicInteger tasksInFlight;
+    private final AtomicBoolean draining;
+
+    public VirtualThreadDispatcher(BlockingQueue<Task> taskQueue,
+                                   TaskWorker taskWorker,
+                                   int concurrencyLimit,
+                                   AtomicInteger tasksInFlight,
+                                   AtomicBoolean draining) {
+        if (concurrencyLimit < 1) {
+            throw new IllegalArgumentException("Virtual thread concurrency limit must be at least 1: " + concurrencyLimit);
+        }
+        this.taskQueue = taskQueue;
+        this.taskWorker = taskWorker;
+        this.concurrencyLimit = concurrencyLimit;
+        this.permits = new Semaphore(concurrencyLimit);
+        this.peakInFlight = new AtomicInteger(0);
+        this.tasksInFlight = tasksInFlight;
+        this.draining = draining;
+    }
+
+    @Override
+    public void run() {
+        taskLogger.logSystemEvent(String.format("Virtual thread dispatcher started with concurrency limit %d",
+                concurrencyLimit));
+
+        ThreadFactory factory = Thread.ofVirtual().name("VirtualTaskWorker-", 1).factory();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(factory);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                permits.acquire();
+                Task task;
+                try {
+                    task = taskQueue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+                if (task == null) {
+                    permits.release();
+                    if (draining.get() && tasksInFlight.get() == 0 && taskQueue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                tasksInFlight.incrementAndGet();
+                peakInFlight.accumulateAndGet(getInFlightCount(), Math::max);
+                executor.execute(() -> {
+                    try {
+                        taskWorker.processTask(task);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            taskLogger.logSystemEvent("Virtual thread dispatcher interrupted");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+
+        taskLogger.logSystemEvent(String.format("Virtual thread dispatcher shutting down. Peak in-flight tasks: %d",
+                peakInFlight.get()));
+    }
+
+    public int getInFlightCount() {
+        return concurrencyLimit - permits.availablePermits();
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                taskLogger.logSystemWarning(String.format("%d virtual task threads did not stop in time",
+                        getInFlightCount()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.model.Task;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+@Getter
+public class WorkerHeartbeat {
+
+    private final TaskWorker worker;
+    private final Thread thread;
+    private final boolean replaceable;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<Task> currentTask;
+    private volatile long taskStartNanos;
+    private volatile long lastBeatNanos;
+    private volatile boolean retired;
+
+    WorkerHeartbeat(TaskWorker worker, Thread thread, boolean replaceable) {
+        this.worker = worker;
+        this.thread = thread;
+        this.replaceable = replaceable;
+        this.currentTask = new AtomicReference<>();
+        this.lastBeatNanos = System.nanoTime();
+    }
+
+    void beat() {
+        lastBeatNanos = System.nanoTime();
+    }
+
+    void begin(Task task) {
+        long now = System.nanoTime();
+        taskStartNanos = now;
+        lastBeatNanos = now;
+        currentTask.set(task);
+    }
+
+    // False when the watchdog has already claimed the task, so the worker must not record an outcome for it.
+    boolean finish(Task task) {
+        lastBeatNanos = System.nanoTime();
+        return currentTask.compareAndSet(task, null);
+    }
+
+    boolean claim(Task task) {
+        return currentTask.compareAndSet(task, null);
+    }
+
+    void retire() {
+        retired = true;
+    }
+
+    public Task getCurrentTask() {
+        return currentTask.get();
+    }
+}
@@ -0,0 +1,280 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.enums.LatencyType;
+import lii.concurqueuesystem.enums.ScalingDirection;
+import lii.concurqueuesystem.logging.TaskLogger;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
+import lii.concurqueuesystem.model.Task;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class WorkerPoolAutoscaler implements Runnable {
+
+    private static final TaskLogger taskLogger = new TaskLogger(WorkerPoolAutoscaler.class);
+    private static final int MAX_PENDING_DECISIONS = 64;
+    private static final double SCALE_UP_MIN_UTILIZATION = 0.75;
+
+    private final BlockingQueue<Task> taskQueue;
+    private final WorkerRoster workerRoster;
+    private final LatencyMetrics latencyMetrics;
+    private final Supplier<TaskWorker> workerFactory;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long intervalMillis;
+    private final long cooldownNanos;
+    private final int scaleUpDepthPerWorker;
+    private final int scaleDownDepthPerWorker;
+    private final long scaleUpQueueWaitMillis;
+    private final double scaleDownUtilization;
+    private final int scaleUpSamples;
+    private final int scaleDownSamples;
+
+    private final Queue<ScalingDecision> pendingDecisions;
+    private final AtomicInteger pendingDecisionCount;
+    private final LongAdder scaleUps;
+    private final LongAdder scaleDowns;
+    private volatile ScalingDecision lastDecision;
+
+    private int lastDepth;
+    private long lastSampleNanos;
+    private long lastWaitCount;
+    private long lastWaitMicros;
+    private int upStreak;
+    private int downStreak;
+    private long lastScaleNanos;
+
+    public WorkerPoolAutoscaler(BlockingQueue<Task> taskQueue,
+                                WorkerRoster workerRoster,
+                                LatencyMetrics latencyMetrics,
+                                Supplier<TaskWorker> workerFactory,
+                                int minWorkers,
+                                int maxWorkers,
+                                long intervalMillis,
+                                long cooldownMillis,
+                                int scaleUpDepthPerWorker,
+                                int scaleDownDepthPerWorker,
+                                long scaleUpQueueWaitMillis,
+                                double scaleDownUtilization,
+                                int scaleUpSamples,
+                                int scaleDownSamples) {
+        if (minWorkers < 1 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException(String.format("Invalid autoscaling bounds: min %d, max %d",
+                    minWorkers, maxWorkers));
+        }
+        if (intervalMillis <= 0 || cooldownMillis < 0) {
+            throw new IllegalArgumentException("Autoscaling interval must be positive and cooldown non-negative");
+        }
+        // The gap between the two depth thresholds is what keeps the pool from flapping around one value.
+        if (scaleDownDepthPerWorker < 0 || scaleUpDepthPerWorker <= scaleDownDepthPerWorker) {
+            throw new IllegalArgumentException(String.format(
+                    "Scale-up depth per worker (%d) must exceed scale-down depth per worker (%d)",
+                    scaleUpDepthPerWorker, scaleDownDepthPerWorker));
+        }
+        if (scaleUpSamples < 1 || scaleDownSamples < 1) {
+            throw new IllegalArgumentException("Autoscaling sample counts must be at least 1");
+        }
+        this.taskQueue = taskQueue;
+        this.workerRoster = workerRoster;
+        this.latencyMetrics = latencyMetrics;
+        this.workerFactory = workerFactory;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.intervalMillis = intervalMillis;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.scaleUpDepthPerWorker = scaleUpDepthPerWorker;
+        this.scaleDownDepthPerWorker = scaleDownDepthPerWorker;
+        this.scaleUpQueueWaitMillis = scaleUpQueueWaitMillis;
+        this.scaleDownUtilization = scaleDownUtilization;
+        this.scaleUpSamples = scaleUpSamples;
+        this.scaleDownSamples = scaleDownSamples;
+        this.pendingDecisions = new ConcurrentLinkedQueue<>();
+        this.pendingDecisionCount = new AtomicInteger(0);
+        this.scaleUps = new LongAdder();
+        this.scaleDowns = new LongAdder();
+    }
+
+    @Override
+    public void run() {
+        taskLogger.logSystemEvent(String.format("Worker autoscaler started with bounds %d-%d, sampling every %d ms",
+                minWorkers, maxWorkers, intervalMillis));
+
+        lastSampleNanos = System.nanoTime();
+        lastScaleNanos = lastSampleNanos;
+        lastDepth = taskQueue.size();
+        lastWaitCount = latencyMetrics.getTotalCount(LatencyType.QUEUE_WAIT);
+        lastWaitMicros = latencyMetrics.getTotalMicros(LatencyType.QUEUE_WAIT);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalMillis);
+                evaluate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                taskLogger.logSystemError("Worker autoscaler encountered unexpected error: " + e.getMessage());
+            }
+        }
+
+        taskLogger.logSystemEvent("Worker autoscaler shutting down");
+    }
+
+    void evaluate() {
+        long now = System.nanoTime();
+        int workers = workerRoster.getWorkerCount();
+        int depth = taskQueue.size();
+        double elapsedSeconds = Math.max(1, now - lastSampleNanos) / 1e9;
+        double growthPerSecond = (depth - lastDepth) / elapsedSeconds;
+        double queueWaitMillis = Math.max(windowedQueueWaitMillis(), headOfLineWaitMillis(now));
+        double utilization = workers > 0 ? Math.min(1.0, (double) workerRoster.getBusyCount() / workers) : 1.0;
+        lastDepth = depth;
+        lastSampleNanos = now;
+
+        // Growth is projected over one cooldown, since that is how long the next decision has to last.
+        double projectedDepth = depth + Math.max(0, growthPerSecond) * cooldownNanos / 1e9;
+        boolean overloaded = workers < minWorkers
+                || (utilization >= SCALE_UP_MIN_UTILIZATION
+                        && (projectedDepth > (double) scaleUpDepthPerWorker * workers
+                                || queueWaitMillis > scaleUpQueueWaitMillis));
+        boolean underused = workers > maxWorkers
+                || (utilization < scaleDownUtilization
+                        && depth <= scaleDownDepthPerWorker * workers
+                        && growthPerSecond <= 0
+                        && queueWaitMillis < scaleUpQueueWaitMillis / 2.0);
+
+        upStreak = overloaded ? upStreak + 1 : 0;
+        downStreak = underused ? downStreak + 1 : 0;
+        if (now - lastScaleNanos < cooldownNanos) {
+            return;
+        }
+
+        if (upStreak >= scaleUpSamples && workers < maxWorkers) {
+            int target = (int) Math.ceil(projectedDepth / scaleUpDepthPerWorker);
+            target = Math.max(workers + 1, Math.min(target, Math.max(workers * 2, minWorkers)));
+            target = Math.min(target, maxWorkers);
+            int added = 0;
+            while (workers + added < target && workerRoster.addWorker(workerFactory.get())) {
+                added++;
+            }
+            if (added > 0) {
+                scaleUps.increment();
+                record(ScalingDecision.of(ScalingDirection.UP, workers, workers + added,
+                        depth, growthPerSecond, queueWaitMillis, utilization), now);
+            }
+        } else if (downStreak >= scaleDownSamples && workers > minWorkers) {
+            if (workerRoster.retireIdleWorker()) {
+                scaleDowns.increment();
+                record(ScalingDecision.of(ScalingDirection.DOWN, workers, workers - 1,
+                        depth, growthPerSecond, queueWaitMillis, utilization), now);
+            }
+        }
+    }
+
+    private double windowedQueueWaitMillis() {
+        long count = latencyMetrics.getTotalCount(LatencyType.QUEUE_WAIT);
+        long micros = latencyMetrics.getTotalMicros(LatencyType.QUEUE_WAIT);
+        long dequeued = count - lastWaitCount;
+        double mean = dequeued > 0 ? (micros - lastWaitMicros) / 1000.0 / dequeued : 0.0;
+        lastWaitCount = count;
+        lastWaitMicros = micros;
+        return mean;
+    }
+
+    private double headOfLineWaitMillis(long now) {
+        // Catches a queue nobody is draining, where no dequeues means no recorded waits.
+        Task head = taskQueue.peek();
+        return head == null ? 0.0 : Math.max(0, now - head.getEnqueuedNanos()) / 1e6;
+    }
+
+    private void record(ScalingDecision decision, long now) {
+        lastScaleNanos = now;
+        upStreak = 0;
+        downStreak = 0;
+        lastDecision = decision;
+
+        pendingDecisions.add(decision);
+        if (pendingDecisionCount.incrementAndGet() > MAX_PENDING_DECISIONS && pendingDecisions.poll() != null) {
+            pendingDecisionCount.decrementAndGet();
+        }
+
+        taskLogger.logSystemEvent(String.format(
+                "Autoscaler %s: %d -> %d workers (depth %d, growth %.1f/s, queue wait %.0f ms, utilization %.0f%%)",
+                decision.getDirection(), decision.getFromWorkers(), decision.getToWorkers(),
+                decision.getQueueDepth(), decision.getGrowthPerSecond(), decision.getQueueWaitMillis(),
+                decision.getUtilization() * 100));
+    }
+
+    public int drainDecisions(Consumer<ScalingDecision> target) {
+        int drained = 0;
+        ScalingDecision decision;
+        while ((decision = pendingDecisions.poll()) != null) {
+            pendingDecisionCount.decrementAndGet();
+            target.accept(decision);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int getWorkerCount() {
+        return workerRoster.getWorkerCount();
+    }
+
+    public int getMinWorkers() {
+        return minWorkers;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public long getScaleUps() {
+        return scaleUps.sum();
+    }
+
+    public long getScaleDowns() {
+        return scaleDowns.sum();
+    }
+
+    public ScalingDecision getLastDecision() {
+        return lastDecision;
+    }
+
+    @Getter
+    public static final class ScalingDecision {
+        private final Instant timestamp;
+        private final ScalingDirection direction;
+        private final int fromWorkers;
+        private final int toWorkers;
+        private final int queueDepth;
+        private final double growthPerSecond;
+        private final double queueWaitMillis;
+        private final double utilization;
+
+        private ScalingDecision(Instant timestamp, ScalingDirection direction, int fromWorkers, int toWorkers,
+                                int queueDepth, double growthPerSecond, double queueWaitMillis, double utilization) {
+            this.timestamp = timestamp;
+            this.direction = direction;
+            this.fromWorkers = fromWorkers;
+            this.toWorkers = toWorkers;
+            this.queueDepth = queueDepth;
+            this.growthPerSecond = growthPerSecond;
+            this.queueWaitMillis = queueWaitMillis;
+            this.utilization = utilization;
+        }
+
+        static ScalingDecision of(ScalingDirection direction, int fromWorkers, int toWorkers, int queueDepth,
+                                  double growthPerSecond, double queueWaitMillis, double utilization) {
+            return new ScalingDecision(Instant.now(), direction, fromWorkers, toWorkers, queueDepth,
+                    growthPerSecond, queueWaitMillis, utilization);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.logging.TaskLogger;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+public class WorkerRoster {
+
+    private static final TaskLogger taskLogger = new TaskLogger(WorkerRoster.class);
+
+    private final ThreadPoolExecutor workerPool;
+    private final Set<WorkerHeartbeat> heartbeats;
+    private final LongAdder workersAdded;
+    private final LongAdder workersRetired;
+
+    public WorkerRoster(ThreadPoolExecutor workerPool) {
+        this.workerPool = workerPool;
+        this.heartbeats = ConcurrentHashMap.newKeySet();
+        this.workersAdded = new LongAdder();
+        this.workersRetired = new LongAdder();
+    }
+
+    void register(WorkerHeartbeat heartbeat) {
+        heartbeats.add(heartbeat);
+    }
+
+    void unregister(WorkerHeartbeat heartbeat) {
+        if (heartbeats.remove(heartbeat) && heartbeat.isRetired()) {
+            shrinkPool();
+            workersRetired.increment();
+            taskLogger.logSystemEvent(String.format("Worker %s retired", heartbeat.getThread().getName()));
+        }
+    }
+
+    Set<WorkerHeartbeat> getHeartbeats() {
+        return heartbeats;
+    }
+
+    public synchronized boolean addWorker(TaskWorker worker) {
+        if (workerPool.isShutdown()) {
+            return false;
+        }
+        // Workers never return to the pool, so each one needs its own core thread.
+        workerPool.setMaximumPoolSize(workerPool.getMaximumPoolSize() + 1);
+        workerPool.setCorePoolSize(workerPool.getCorePoolSize() + 1);
+        try {
+            workerPool.execute(worker);
+            workersAdded.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            shrinkPool();
+            return false;
+        }
+    }
+
+    public boolean retire(WorkerHeartbeat heartbeat) {
+        if (heartbeat.isRetired()) {
+            return false;
+        }
+        // The worker finishes its current task and leaves on its next queue check; the pool shrinks when it does.
+        heartbeat.retire();
+        return true;
+    }
+
+    public boolean retireIdleWorker() {
+        WorkerHeartbeat busyCandidate = null;
+        for (WorkerHeartbeat heartbeat : heartbeats) {
+            if (!heartbeat.isReplaceable() || heartbeat.isRetired()) {
+                continue;
+            }
+            if (heartbeat.getCurrentTask() == null) {
+                return retire(heartbeat);
+            }
+            busyCandidate = heartbeat;
+        }
+        return busyCandidate != null && retire(busyCandidate);
+    }
+
+    private synchronized void shrinkPool() {
+        if (workerPool.isShutdown() || workerPool.getCorePoolSize() <= 1) {
+            return;
+        }
+        workerPool.setCorePoolSize(workerPool.getCorePoolSize() - 1);
+        workerPool.setMaximumPoolSize(workerPool.getMaximumPoolSize() - 1);
+    }
+
+    public int getWorkerCount() {
+        int workers = 0;
+        for (WorkerHeartbeat heartbeat : heartbeats) {
+            if (heartbeat.isReplaceable() && !heartbeat.isRetired()) {
+                workers++;
+            }
+        }
+        return workers;
+    }
+
+    public int getBusyCount() {
+        int busy = 0;
+        for (WorkerHeartbeat heartbeat : heartbeats) {
+            if (heartbeat.getCurrentTask() != null) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    public long getWorkersAdded() {
+        return workersAdded.sum();
+    }
+
+    public long getWorkersRetired() {
+        return workersRetired.sum();
+    }
+}
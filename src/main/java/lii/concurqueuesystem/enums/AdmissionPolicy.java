@@ -0,0 +1,17 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum AdmissionPolicy {
+    BLOCK("Wait for free capacity up to the admission timeout, then reject"),
+    REJECT("Reject the incoming task immediately when the queue is full"),
+    DROP_LOWEST_PRIORITY("Evict the lowest-priority queued task to make room"),
+    DROP_OLDEST("Evict the oldest queued task to make room");
+
+    private final String description;
+
+    AdmissionPolicy(String description) {
+        this.description = description;
+    }
+}
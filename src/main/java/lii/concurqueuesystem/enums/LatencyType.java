@@ -0,0 +1,16 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum LatencyType {
+    QUEUE_WAIT("Time from enqueue until a worker starts the task"),
+    SERVICE("Time a worker spends processing the task"),
+    END_TO_END("Time from task creation until successful completion");
+
+    private final String description;
+
+    LatencyType(String description) {
+        this.description = description;
+    }
+}
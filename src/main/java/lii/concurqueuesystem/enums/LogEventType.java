@@ -0,0 +1,29 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+import java.util.logging.Level;
+
+@Getter
+public enum LogEventType {
+    TASK_QUEUED(Level.INFO, "Producer submitted a task"),
+    TASKS_QUEUED(Level.INFO, "Producer submitted a batch of tasks in one queue operation"),
+    TASK_PROCESSING(Level.INFO, "Worker started a task"),
+    TASK_SUCCESS(Level.INFO, "Worker completed a task"),
+    TASK_FAILURE(Level.WARNING, "Worker failed a task"),
+    TASK_RETRY(Level.WARNING, "Task queued for retry"),
+    TASK_ABANDONED(Level.SEVERE, "Task abandoned after its last retry"),
+    TASK_EXPIRED(Level.WARNING, "Task dropped because its deadline passed before processing"),
+    TASK_DEDUPLICATED(Level.INFO, "Submission merged into an earlier task with the same idempotency key"),
+    SYSTEM_EVENT(Level.INFO, "Lifecycle or informational message"),
+    SYSTEM_WARNING(Level.WARNING, "Recoverable problem"),
+    SYSTEM_ERROR(Level.SEVERE, "Unrecoverable problem");
+
+    private final Level level;
+    private final String description;
+
+    LogEventType(Level level, String description) {
+        this.level = level;
+        this.description = description;
+    }
+}
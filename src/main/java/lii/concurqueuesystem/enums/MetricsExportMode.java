@@ -0,0 +1,16 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum MetricsExportMode {
+    NDJSON_STREAM("One compact JSON line per sample, appended to size- and time-rolled files"),
+    SNAPSHOT_FILES("A new pretty-printed JSON file every minute"),
+    NONE("No metrics export");
+
+    private final String description;
+
+    MetricsExportMode(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,25 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum PriorityBand {
+    HIGH("Priority 8-10"),
+    MEDIUM("Priority 4-7"),
+    LOW("Priority 1-3");
+
+    private final String description;
+
+    PriorityBand(String description) {
+        this.description = description;
+    }
+
+    public static PriorityBand of(int priority) {
+        if (priority >= 8) {
+            return HIGH;
+        } else if (priority >= 4) {
+            return MEDIUM;
+        }
+        return LOW;
+    }
+}
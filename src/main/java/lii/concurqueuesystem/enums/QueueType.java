@@ -0,0 +1,17 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum QueueType {
+    PRIORITY_HEAP("Single PriorityBlockingQueue ordered by Task.compareTo"),
+    PRIORITY_BUCKETS("Lock-free FIFO bucket per priority level"),
+    EARLIEST_DEADLINE_FIRST("PriorityBlockingQueue ordered by deadline, then priority"),
+    FAIR_SHARE("Weighted deficit round robin across per-producer priority queues");
+
+    private final String description;
+
+    QueueType(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,16 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum RateLimitMode {
+    BLOCK("Wait for the producer's next token before submitting"),
+    REJECT("Drop any task submitted while the producer is over its limit"),
+    SHED("Drop low-priority tasks while over the limit and make the rest wait for a token");
+
+    private final String description;
+
+    RateLimitMode(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,15 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ScalingDirection {
+    UP("Workers added to absorb a backlog"),
+    DOWN("Idle worker retired");
+
+    private final String description;
+
+    ScalingDirection(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,16 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum SyncPolicy {
+    EVERY_WRITE("Force each record to disk before the enqueue returns"),
+    GROUP_COMMIT("Writers wait for a shared flush that covers every pending record"),
+    PERIODIC("Flush on a timer; a crash may lose the last interval of records");
+
+    private final String description;
+
+    SyncPolicy(String description) {
+        this.description = description;
+    }
+}
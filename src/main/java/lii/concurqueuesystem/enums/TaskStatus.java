@@ -1,6 +1,5 @@
 package lii.concurqueuesystem.enums;
 
-import lombok.Data;
 import lombok.Getter;
 
 @Getter
@@ -10,7 +9,9 @@ public enum TaskStatus {
     COMPLETED("Task has been completed successfully"),
     FAILED("Task processing failed"),
     RETRY("Task failed but will be retried"),
-    ABANDONED("Task exceeded maximum retry attempts");
+    ABANDONED("Task exceeded maximum retry attempts"),
+    DROPPED("Task was rejected or evicted by queue admission control"),
+    EXPIRED("Task passed its deadline before a worker started it");
 
     private final String description;
 
@@ -18,6 +19,10 @@ public enum TaskStatus {
         this.description = description;
     }
 
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == ABANDONED || this == DROPPED || this == EXPIRED;
+    }
+
     @Override
     public String toString() {
         return name() + " - " + description;
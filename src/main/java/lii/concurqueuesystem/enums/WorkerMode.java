@@ -0,0 +1,16 @@
+package lii.concurqueuesystem.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum WorkerMode {
+    PLATFORM_POOL("Fixed pool of platform worker threads"),
+    VIRTUAL_THREADS("One virtual thread per task, capped by a concurrency limit"),
+    WORK_STEALING("Platform workers with local deques that steal from each other");
+
+    private final String description;
+
+    WorkerMode(String description) {
+        this.description = description;
+    }
+}
@@ -2,6 +2,8 @@ package lii.concurqueuesystem.exception;
 
 public class TaskProcessingException extends Exception {
 
+    private static final long serialVersionUID = 1L;
+
     public TaskProcessingException(String message) {
         super(message);
     }
@@ -0,0 +1,38 @@
+package lii.concurqueuesystem.handler;
+
+import lii.concurqueuesystem.exception.TaskProcessingException;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class SimulatedTaskHandler implements TaskHandler {
+
+    private static final double FAILURE_PROBABILITY = 0.15;
+
+    @Override
+    public CompletableFuture<Void> handle(Task task) throws InterruptedException, TaskProcessingException {
+        Thread.sleep(calculateProcessingTime(task));
+
+        if (shouldSimulateFailure()) {
+            throw new TaskProcessingException("Simulated processing failure");
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private long calculateProcessingTime(Task task) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int priority = task.getPriority();
+        if (priority >= 8) {
+            return 2000 + random.nextInt(3000);
+        } else if (priority >= 4) {
+            return 1000 + random.nextInt(2000);
+        } else {
+            return 500 + random.nextInt(1000);
+        }
+    }
+
+    private boolean shouldSimulateFailure() {
+        return ThreadLocalRandom.current().nextDouble() < FAILURE_PROBABILITY;
+    }
+}
@@ -0,0 +1,13 @@
+package lii.concurqueuesystem.handler;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface TaskHandler {
+
+    // Synchronous handlers do their work and return a completed future; asynchronous ones return
+    // straight away and the worker picks up its next task while the future is pending.
+    CompletableFuture<Void> handle(Task task) throws Exception;
+}
@@ -0,0 +1,60 @@
+package lii.concurqueuesystem.handler;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+public class TaskHandlerRegistry {
+
+    private volatile Route[] routes = new Route[0];
+    private volatile TaskHandler defaultHandler;
+
+    public TaskHandlerRegistry(TaskHandler defaultHandler) {
+        this.defaultHandler = Objects.requireNonNull(defaultHandler);
+    }
+
+    public synchronized void register(String namePrefix, TaskHandler handler) {
+        Objects.requireNonNull(namePrefix);
+        Objects.requireNonNull(handler);
+        List<Route> updated = new ArrayList<>(List.of(routes));
+        updated.removeIf(route -> route.prefix.equals(namePrefix));
+        updated.add(new Route(namePrefix, handler));
+        // Longest prefix first, so the most specific registration wins.
+        updated.sort(Comparator.comparingInt((Route route) -> route.prefix.length()).reversed());
+        routes = updated.toArray(new Route[0]);
+    }
+
+    public synchronized boolean unregister(String namePrefix) {
+        List<Route> updated = new ArrayList<>(List.of(routes));
+        boolean removed = updated.removeIf(route -> route.prefix.equals(namePrefix));
+        routes = updated.toArray(new Route[0]);
+        return removed;
+    }
+
+    public void setDefaultHandler(TaskHandler defaultHandler) {
+        this.defaultHandler = Objects.requireNonNull(defaultHandler);
+    }
+
+    public TaskHandler resolve(Task task) {
+        String name = task.getName();
+        for (Route route : routes) {
+            if (name.startsWith(route.prefix)) {
+                return route.handler;
+            }
+        }
+        return defaultHandler;
+    }
+
+    private static final class Route {
+        private final String prefix;
+        private final TaskHandler handler;
+
+        private Route(String prefix, TaskHandler handler) {
+            this.prefix = prefix;
+            this.handler = handler;
+        }
+    }
+}
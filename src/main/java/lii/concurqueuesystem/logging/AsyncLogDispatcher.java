@@ -0,0 +1,194 @@
+package lii.concurqueuesystem.logging;
+
+import lii.concurqueuesystem.enums.LogEventType;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class AsyncLogDispatcher implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final long CLOSE_GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Moving the claim cursor here makes every later claim see a full ring, so nothing is claimed after close.
+    private static final long SEALED = Long.MAX_VALUE / 2;
+
+    private final Event[] ring;
+    // Per-slot sequence: equal to the claim position when free, position + 1 once published.
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong claimed;
+    private volatile long consumed;
+
+    private final LongAdder published;
+    private final LongAdder dropped;
+    private Thread formatter;
+    private volatile boolean running;
+
+    public AsyncLogDispatcher(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Log buffer capacity must be a power of two: " + capacity);
+        }
+        this.ring = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.claimed = new AtomicLong(0);
+        this.published = new LongAdder();
+        this.dropped = new LongAdder();
+    }
+
+    public synchronized void start() {
+        if (formatter != null) {
+            throw new IllegalStateException("Async log dispatcher already started");
+        }
+        running = true;
+        formatter = new Thread(this::runFormatter, "AsyncLogFormatter");
+        formatter.setDaemon(true);
+        formatter.start();
+    }
+
+    public boolean publish(Logger logger, LogEventType type, String actor, Object subject,
+                           String detail, long value, long limit) {
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        long position;
+        while (true) {
+            position = claimed.get();
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (claimed.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0 || !running) {
+                dropped.increment();
+                return false;
+            }
+        }
+
+        Event event = ring[(int) position & mask];
+        event.logger = logger;
+        event.type = type;
+        event.actor = actor;
+        event.subject = subject;
+        event.detail = detail;
+        event.value = value;
+        event.limit = limit;
+        event.millis = System.currentTimeMillis();
+        sequences.set((int) position & mask, position + 1);
+        published.increment();
+        return true;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getBacklog() {
+        long end = claimed.get();
+        return end >= SEALED ? 0 : (int) Math.max(0, end - consumed);
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (formatter == null) {
+            return;
+        }
+        LockSupport.unpark(formatter);
+        try {
+            formatter.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFormatter() {
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        flushClaimed();
+        if (dropped.sum() > 0) {
+            Logger.getLogger(AsyncLogDispatcher.class.getName()).warning(String.format(
+                    "Async logging dropped %d of %d events because the buffer was full",
+                    dropped.sum(), dropped.sum() + published.sum()));
+        }
+    }
+
+    // Publishers that claimed a slot just before close get a short grace period to fill it; any slot still
+    // empty after that is counted as dropped rather than silently lost.
+    private void flushClaimed() {
+        long end = claimed.getAndSet(SEALED);
+        long graceEnd = System.nanoTime() + CLOSE_GRACE_NANOS;
+        while (consumed < end) {
+            if (!drain()) {
+                if (System.nanoTime() - graceEnd > 0) {
+                    dropped.add(end - consumed);
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private boolean drain() {
+        boolean progressed = false;
+        while (true) {
+            int index = (int) consumed & mask;
+            if (sequences.get(index) != consumed + 1) {
+                return progressed;
+            }
+            Event event = ring[index];
+            try {
+                LogRecord record = new LogRecord(event.type.getLevel(), TaskLogger.render(
+                        event.type, event.actor, event.subject, event.detail, event.value, event.limit));
+                record.setLoggerName(event.logger.getName());
+                record.setInstant(Instant.ofEpochMilli(event.millis));
+                event.logger.log(record);
+            } catch (RuntimeException e) {
+                // A broken handler must not stall the ring; the event is lost either way.
+                dropped.increment();
+            } finally {
+                event.clear();
+                sequences.set(index, consumed + ring.length);
+                consumed++;
+            }
+            progressed = true;
+        }
+    }
+
+    private static final class Event {
+        private Logger logger;
+        private LogEventType type;
+        private String actor;
+        private Object subject;
+        private String detail;
+        private long value;
+        private long limit;
+        private long millis;
+
+        private void clear() {
+            logger = null;
+            subject = null;
+            actor = null;
+            detail = null;
+        }
+    }
+}
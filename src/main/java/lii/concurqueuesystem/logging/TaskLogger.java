@@ -1,5 +1,7 @@
 package lii.concurqueuesystem.logging;
 
+import lii.concurqueuesystem.enums.LogEventType;
+
 import java.util.logging.Logger;
 
 public class TaskLogger {
@@ -10,61 +12,129 @@ public class TaskLogger {
     private static final String YELLOW = "\u001B[33m";
     private static final String BLUE = "\u001B[34m";
 
+    private static volatile AsyncLogDispatcher asyncDispatcher;
+
     private final Logger logger;
 
     public TaskLogger(Class<?> clazz) {
         this.logger = Logger.getLogger(clazz.getName());
     }
 
+    public static synchronized void enableAsync(int bufferCapacity) {
+        if (asyncDispatcher == null) {
+            AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(bufferCapacity);
+            dispatcher.start();
+            asyncDispatcher = dispatcher;
+        }
+    }
+
+    public static synchronized void disableAsync() {
+        AsyncLogDispatcher dispatcher = asyncDispatcher;
+        asyncDispatcher = null;
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    public static AsyncLogDispatcher getAsyncDispatcher() {
+        return asyncDispatcher;
+    }
+
     public void logTaskSuccess(String workerName, String taskName, long processingTime) {
-        logger.info(String.format("%s✓ Worker %s completed task %s in %d ms%s",
-                GREEN, workerName, taskName, processingTime, RESET));
+        log(LogEventType.TASK_SUCCESS, workerName, taskName, null, processingTime, 0);
     }
 
     public void logTaskFailure(String workerName, String taskName, String reason) {
-        logger.warning(String.format("%s✗ Worker %s failed to process task %s: %s%s",
-                RED, workerName, taskName, reason, RESET));
+        log(LogEventType.TASK_FAILURE, workerName, taskName, reason, 0, 0);
     }
 
     public void logTaskRetry(String taskName, int retryCount, int maxRetries) {
-        logger.warning(String.format("%s⟲ Task %s queued for retry (attempt %d/%d)%s",
-                YELLOW, taskName, retryCount, maxRetries, RESET));
+        log(LogEventType.TASK_RETRY, null, taskName, null, retryCount, maxRetries);
     }
 
     public void logTaskAbandoned(String taskName, int maxRetries) {
-        logger.severe(String.format("%s⚠ Task %s abandoned after %d retry attempts%s",
-                RED, taskName, maxRetries, RESET));
+        log(LogEventType.TASK_ABANDONED, null, taskName, null, 0, maxRetries);
+    }
+
+    public void logTaskExpired(String actor, String taskName, long overdueMillis) {
+        log(LogEventType.TASK_EXPIRED, actor, taskName, null, overdueMillis, 0);
+    }
+
+    public void logTaskDeduplicated(String producerName, String taskName, Object originalTaskId) {
+        log(LogEventType.TASK_DEDUPLICATED, producerName, taskName, String.valueOf(originalTaskId), 0, 0);
     }
 
     public void logTaskProcessing(String workerName, String taskName) {
-        logger.info(String.format("Worker %s processing task: %s", workerName, taskName));
+        log(LogEventType.TASK_PROCESSING, workerName, taskName, null, 0, 0);
+    }
+
+    // Takes the task itself so its toString() only runs if the event is actually written.
+    public void logTaskQueued(String producerName, Object task) {
+        log(LogEventType.TASK_QUEUED, producerName, task, null, 0, 0);
     }
 
-    public void logTaskQueued(String producerName, String taskName) {
-        logger.info(String.format("Producer %s submitted task: %s", producerName, taskName));
+    public void logTasksQueued(String producerName, int admitted, int rejected) {
+        log(LogEventType.TASKS_QUEUED, producerName, null, null, admitted, rejected);
     }
 
     public void logSystemEvent(String message) {
-        logger.info(String.format("%sℹ %s%s", BLUE, message, RESET));
+        log(LogEventType.SYSTEM_EVENT, null, null, message, 0, 0);
     }
 
     public void logSystemWarning(String message) {
-        logger.warning(String.format("%s⚠ %s%s", YELLOW, message, RESET));
+        log(LogEventType.SYSTEM_WARNING, null, null, message, 0, 0);
     }
 
     public void logSystemError(String message) {
-        logger.severe(String.format("%s⚠ %s%s", RED, message, RESET));
+        log(LogEventType.SYSTEM_ERROR, null, null, message, 0, 0);
     }
 
     public void info(String message) {
-        logger.info(String.format("%sℹ %s%s", BLUE, message, RESET));
+        log(LogEventType.SYSTEM_EVENT, null, null, message, 0, 0);
     }
 
     public void severe(String raceConditionDemoInterrupted) {
-        logger.severe(String.format("%s⚠ %s%s", RED, raceConditionDemoInterrupted, RESET));
+        log(LogEventType.SYSTEM_ERROR, null, null, raceConditionDemoInterrupted, 0, 0);
     }
 
     public void warning(String s) {
-        logger.warning(String.format("%s⚠ %s%s", YELLOW, s, RESET));
+        log(LogEventType.SYSTEM_WARNING, null, null, s, 0, 0);
+    }
+
+    private void log(LogEventType type, String actor, Object subject, String detail, long value, long limit) {
+        if (!logger.isLoggable(type.getLevel())) {
+            return;
+        }
+        AsyncLogDispatcher dispatcher = asyncDispatcher;
+        if (dispatcher != null) {
+            dispatcher.publish(logger, type, actor, subject, detail, value, limit);
+        } else {
+            logger.log(type.getLevel(), render(type, actor, subject, detail, value, limit));
+        }
+    }
+
+    static String render(LogEventType type, String actor, Object subject, String detail, long value, long limit) {
+        return switch (type) {
+            case TASK_QUEUED -> String.format("Producer %s submitted task: %s", actor, subject);
+            case TASKS_QUEUED -> limit == 0
+                    ? String.format("Producer %s submitted %d tasks", actor, value)
+                    : String.format("Producer %s submitted %d tasks, %d rejected", actor, value, limit);
+            case TASK_PROCESSING -> String.format("Worker %s processing task: %s", actor, subject);
+            case TASK_SUCCESS -> String.format("%s✓ Worker %s completed task %s in %d ms%s",
+                    GREEN, actor, subject, value, RESET);
+            case TASK_FAILURE -> String.format("%s✗ Worker %s failed to process task %s: %s%s",
+                    RED, actor, subject, detail, RESET);
+            case TASK_RETRY -> String.format("%s⟲ Task %s queued for retry (attempt %d/%d)%s",
+                    YELLOW, subject, value, limit, RESET);
+            case TASK_ABANDONED -> String.format("%s⚠ Task %s abandoned after %d retry attempts%s",
+                    RED, subject, limit, RESET);
+            case TASK_EXPIRED -> String.format("%s⌛ %s dropped task %s, %d ms past its deadline%s",
+                    YELLOW, actor, subject, value, RESET);
+            case TASK_DEDUPLICATED -> String.format("Producer %s resubmitted task %s, merged into task %s",
+                    actor, subject, detail);
+            case SYSTEM_EVENT -> String.format("%sℹ %s%s", BLUE, detail, RESET);
+            case SYSTEM_WARNING -> String.format("%s⚠ %s%s", YELLOW, detail, RESET);
+            case SYSTEM_ERROR -> String.format("%s⚠ %s%s", RED, detail, RESET);
+        };
     }
 }
@@ -1,6 +1,8 @@
 package lii.concurqueuesystem.menu;
 
 import lii.concurqueuesystem.ConcurQueueSystemApplication;
+import lii.concurqueuesystem.config.SystemConfig;
+import lii.concurqueuesystem.enums.AdmissionPolicy;
 import lii.concurqueuesystem.demo.ConcurrencyDemo;
 import lii.concurqueuesystem.logging.TaskLogger;
 
@@ -250,9 +252,15 @@ public class Menu {
             System.out.print("Enter worker pool size (default 5): ");
             String workers = scanner.nextLine().trim();
 
-            System.out.print("Enter queue capacity (default 100): ");
+            System.out.print("Enter queue capacity (default 50): ");
             String capacity = scanner.nextLine().trim();
 
+            System.out.print("Enter admission policy BLOCK/REJECT/DROP_LOWEST_PRIORITY/DROP_OLDEST (default BLOCK): ");
+            String policy = scanner.nextLine().trim().toUpperCase();
+
+            System.out.print("Enter simulated duplicate submission rate 0.0-1.0 (default 0): ");
+            String duplicates = scanner.nextLine().trim();
+
             System.out.print("Enter simulation duration in seconds (default 60): ");
             String duration = scanner.nextLine().trim();
 
@@ -261,13 +269,29 @@ public class Menu {
 
             int durationSec = duration.isEmpty() ? 60 : Integer.parseInt(duration);
 
+            SystemConfig config = new SystemConfig();
+            if (!workers.isEmpty()) {
+                config.setWorkerPoolSize(Integer.parseInt(workers));
+            }
+            if (!capacity.isEmpty()) {
+                config.setQueueCapacity(Integer.parseInt(capacity));
+            }
+            if (!policy.isEmpty()) {
+                config.setAdmissionPolicy(AdmissionPolicy.valueOf(policy));
+            }
+            if (!duplicates.isEmpty()) {
+                config.setDuplicateSubmissionRate(Double.parseDouble(duplicates));
+            }
+
             taskLogger.logSystemEvent("Starting custom configuration...");
-            taskLogger.logSystemEvent(String.format("Workers: %s, Capacity: %s, Duration: %ds",
-                    workers.isEmpty() ? "5" : workers,
-                    capacity.isEmpty() ? "100" : capacity,
+            taskLogger.logSystemEvent(String.format("Workers: %d, Capacity: %d, Policy: %s, Duplicates: %.2f, Duration: %ds",
+                    config.getWorkerPoolSize(),
+                    config.getQueueCapacity(),
+                    config.getAdmissionPolicy(),
+                    config.getDuplicateSubmissionRate(),
                     durationSec));
 
-            ConcurQueueSystemApplication system = new ConcurQueueSystemApplication();
+            ConcurQueueSystemApplication system = new ConcurQueueSystemApplication(config);
             system.start();
             Thread.sleep(durationSec * 1000L);
 
@@ -0,0 +1,73 @@
+package lii.concurqueuesystem.metrics;
+
+import lii.concurqueuesystem.enums.LatencyType;
+import lii.concurqueuesystem.enums.PriorityBand;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyMetrics {
+
+    private final LatencyHistogram[][] histograms;
+    // Bands hide starvation of one priority inside a band, so the worst queue wait is also kept per priority.
+    private final AtomicLongArray maxQueueWaitMicros;
+
+    public LatencyMetrics() {
+        this.histograms = new LatencyHistogram[LatencyType.values().length][PriorityBand.values().length];
+        for (LatencyType type : LatencyType.values()) {
+            for (PriorityBand band : PriorityBand.values()) {
+                histograms[type.ordinal()][band.ordinal()] = new LatencyHistogram();
+            }
+        }
+        this.maxQueueWaitMicros = new AtomicLongArray(Task.MAX_PRIORITY - Task.MIN_PRIORITY + 1);
+    }
+
+    public void record(LatencyType type, int priority, long elapsedNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        histograms[type.ordinal()][PriorityBand.of(priority).ordinal()].recordValue(micros);
+        if (type == LatencyType.QUEUE_WAIT && priority >= Task.MIN_PRIORITY && priority <= Task.MAX_PRIORITY) {
+            int index = priority - Task.MIN_PRIORITY;
+            long current = maxQueueWaitMicros.get(index);
+            while (micros > current && !maxQueueWaitMicros.compareAndSet(index, current, micros)) {
+                current = maxQueueWaitMicros.get(index);
+            }
+        }
+    }
+
+    public double getMaxQueueWaitMillis(int priority) {
+        return maxQueueWaitMicros.get(priority - Task.MIN_PRIORITY) / 1000.0;
+    }
+
+    public LatencyHistogram getHistogram(LatencyType type, PriorityBand band) {
+        return histograms[type.ordinal()][band.ordinal()];
+    }
+
+    public long getCount(LatencyType type, PriorityBand band) {
+        return getHistogram(type, band).getTotalCount();
+    }
+
+    public long getTotalCount(LatencyType type) {
+        long total = 0;
+        for (LatencyHistogram histogram : histograms[type.ordinal()]) {
+            total += histogram.getTotalCount();
+        }
+        return total;
+    }
+
+    public long getTotalMicros(LatencyType type) {
+        long total = 0;
+        for (LatencyHistogram histogram : histograms[type.ordinal()]) {
+            total += histogram.getTotalValue();
+        }
+        return total;
+    }
+
+    public double getPercentileMillis(LatencyType type, PriorityBand band, double percentile) {
+        return getHistogram(type, band).getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double getMaxMillis(LatencyType type, PriorityBand band) {
+        return getHistogram(type, band).getMax() / 1000.0;
+    }
+}
@@ -2,7 +2,9 @@ package lii.concurqueuesystem.model;
 
 import lombok.Getter;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.UUID;
 
 
@@ -13,33 +15,130 @@ public class Task implements Comparable<Task>{
     private final String name;
     private final int priority;
     private final Instant createdTimestamp;
+    private final long createdNanos;
     private final String payload;
     private int retryCount = 0;
     private static final int MAX_RETRIES = 3;
+    public static final int MIN_PRIORITY = 1;
+    public static final int MAX_PRIORITY = 10;
     private Instant lastProcessedTimestamp;
+    private long enqueuedNanos;
+    private final Instant deadline;
+    private final long deadlineNanos;
+    private final String idempotencyKey;
+
+    // Tasks with a deadline come first, earliest first; the rest keep their priority order behind them.
+    public static final Comparator<Task> EARLIEST_DEADLINE_FIRST = (a, b) -> {
+        if (a.hasDeadline() != b.hasDeadline()) {
+            return a.hasDeadline() ? -1 : 1;
+        }
+        if (a.hasDeadline()) {
+            int byDeadline = Long.compare(a.deadlineNanos - b.deadlineNanos, 0);
+            if (byDeadline != 0) {
+                return byDeadline;
+            }
+        }
+        return a.compareTo(b);
+    };
 
     public Task(String name, int priority, String payload) {
+        this(name, priority, payload, null);
+    }
+
+    public Task(String name, int priority, String payload, Duration timeToLive) {
+        this(name, priority, payload, timeToLive, null);
+    }
+
+    public Task(String name, int priority, String payload, Duration timeToLive, String idempotencyKey) {
         this.id = UUID.randomUUID();
         this.name = name;
         this.priority = priority;
         this.createdTimestamp = Instant.now();
+        this.createdNanos = System.nanoTime();
+        this.enqueuedNanos = createdNanos;
         this.payload = payload;
         this.retryCount = 0;
+        this.deadline = timeToLive == null ? null : createdTimestamp.plus(timeToLive);
+        this.deadlineNanos = timeToLive == null ? 0 : createdNanos + timeToLive.toNanos();
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Task(UUID id, String name, int priority, Instant createdTimestamp, String payload, int retryCount) {
+        this(id, name, priority, createdTimestamp, payload, retryCount, null);
+    }
+
+    public Task(UUID id, String name, int priority, Instant createdTimestamp, String payload, int retryCount,
+                Instant deadline) {
+        this(id, name, priority, createdTimestamp, payload, retryCount, deadline, null);
+    }
+
+    public Task(UUID id, String name, int priority, Instant createdTimestamp, String payload, int retryCount,
+                Instant deadline, String idempotencyKey) {
+        Instant now = Instant.now();
+        long nowNanos = System.nanoTime();
+        this.id = id;
+        this.name = name;
+        this.priority = priority;
+        this.createdTimestamp = createdTimestamp;
+        this.createdNanos = nowNanos - Duration.between(createdTimestamp, now).toNanos();
+        this.enqueuedNanos = nowNanos;
+        this.payload = payload;
+        this.retryCount = retryCount;
+        this.deadline = deadline;
+        this.deadlineNanos = deadline == null ? 0 : nowNanos + Duration.between(now, deadline).toNanos();
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    // Restores the monotonic clock readings of a task that went through a codec, which keeps only wall-clock millis.
+    public Task(Task decoded, long createdNanos, long enqueuedNanos, long deadlineNanos) {
+        this.id = decoded.getId();
+        this.name = decoded.getName();
+        this.priority = decoded.getPriority();
+        this.createdTimestamp = decoded.getCreatedTimestamp();
+        this.createdNanos = createdNanos;
+        this.enqueuedNanos = enqueuedNanos;
+        this.payload = decoded.getPayload();
+        this.retryCount = decoded.getRetryCount();
+        this.lastProcessedTimestamp = decoded.getLastProcessedTimestamp();
+        this.deadline = decoded.getDeadline();
+        this.deadlineNanos = deadlineNanos;
+        this.idempotencyKey = decoded.getIdempotencyKey();
     }
 
     public Task(Task original) {
-        this.id = original.id;
-        this.name = original.name;
+        this.id = original.getId();
+        this.name = original.getName();
         this.priority = original.priority;
-        this.createdTimestamp = original.createdTimestamp;
-        this.payload = original.payload;
+        this.createdTimestamp = original.getCreatedTimestamp();
+        this.createdNanos = original.createdNanos;
+        this.enqueuedNanos = original.enqueuedNanos;
+        this.payload = original.getPayload();
         this.retryCount = original.retryCount + 1;
-        this.lastProcessedTimestamp = original.lastProcessedTimestamp;
+        this.lastProcessedTimestamp = original.getLastProcessedTimestamp();
+        this.deadline = original.getDeadline();
+        this.deadlineNanos = original.deadlineNanos;
+        this.idempotencyKey = original.getIdempotencyKey();
+    }
+
+    // For subclasses that keep the rest of the task elsewhere and override its getters: only the fields queues
+    // order, age and expire tasks by are held here.
+    protected Task(int priority, int retryCount, long createdNanos, long enqueuedNanos, long deadlineNanos) {
+        this.id = null;
+        this.name = null;
+        this.priority = priority;
+        this.createdTimestamp = null;
+        this.createdNanos = createdNanos;
+        this.enqueuedNanos = enqueuedNanos;
+        this.payload = null;
+        this.retryCount = retryCount;
+        this.deadline = null;
+        this.deadlineNanos = deadlineNanos;
+        this.idempotencyKey = null;
     }
 
     public Task createRetry() {
         if (retryCount >= MAX_RETRIES) {
-            throw new IllegalStateException("Max retries exceeded for task: " + id);
+            throw new IllegalStateException("Max retries exceeded for task: " + getId());
         }
         return new Task(this);
     }
@@ -48,6 +147,22 @@ public class Task implements Comparable<Task>{
         return retryCount < MAX_RETRIES;
     }
 
+    public boolean hasDeadline() {
+        return deadline != null;
+    }
+
+    public boolean hasIdempotencyKey() {
+        return idempotencyKey != null;
+    }
+
+    public boolean isExpired() {
+        return hasDeadline() && System.nanoTime() - deadlineNanos > 0;
+    }
+
+    public void markEnqueued() {
+        this.enqueuedNanos = System.nanoTime();
+    }
+
     public void incrementRetryCount() {
         this.retryCount++;
     }
@@ -58,25 +173,25 @@ public class Task implements Comparable<Task>{
         if (priorityComparison != 0) {
             return priorityComparison;
         }
-        return this.createdTimestamp.compareTo(other.createdTimestamp);
+        // createdNanos mirrors createdTimestamp on the monotonic clock and needs no Instant to compare.
+        return Long.compare(this.createdNanos - other.createdNanos, 0);
     }
 
     @Override
     public String toString() {
         return String.format("Task{id=%s, name='%s', priority=%d, retries=%d, created=%s}",
-                id.toString().substring(0, 8), name, priority, retryCount, createdTimestamp);
+                getId().toString().substring(0, 8), getName(), priority, retryCount, getCreatedTimestamp());
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        Task task = (Task) obj;
-        return id.equals(task.id);
+        if (!(obj instanceof Task task)) return false;
+        return getId().equals(task.getId());
     }
 
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return getId().hashCode();
     }
 }
@@ -0,0 +1,131 @@
+package lii.concurqueuesystem.monitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+public class RollingMetricsWriter implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(RollingMetricsWriter.class.getName());
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final String SUFFIX = ".ndjson";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String baseName;
+    private final long maxFileBytes;
+    private final long rollIntervalMillis;
+    private final int maxFiles;
+
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private FileChannel channel;
+    private Path currentFile;
+    private long currentBytes;
+    private long openedAtMillis;
+    private int fileSequence;
+
+    public RollingMetricsWriter(Path directory, String baseName, long maxFileBytes,
+                                long rollIntervalMillis, int maxFiles) {
+        if (maxFileBytes < BUFFER_BYTES || rollIntervalMillis <= 0 || maxFiles < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid metrics roll settings: maxFileBytes=%d, rollInterval=%d ms, maxFiles=%d",
+                    maxFileBytes, rollIntervalMillis, maxFiles));
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxFileBytes = maxFileBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.maxFiles = maxFiles;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+    }
+
+    // Each line goes out in a single write so a reader tailing the file never sees half a sample.
+    public void appendLine(CharSequence line) throws IOException {
+        buffer.clear();
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(line);
+        CoderResult result = encoder.encode(chars, buffer, true);
+        if (result.isOverflow() || buffer.remaining() < 1) {
+            throw new IOException("Metrics line exceeds " + BUFFER_BYTES + " bytes");
+        }
+        encoder.flush(buffer);
+        buffer.put((byte) '\n');
+        buffer.flip();
+
+        long now = System.currentTimeMillis();
+        // An interrupt during a write closes the channel, so a closed channel also starts a new file.
+        if (channel == null
+                || !channel.isOpen()
+                || currentBytes + buffer.remaining() > maxFileBytes
+                || now - openedAtMillis >= rollIntervalMillis) {
+            roll(now);
+        }
+
+        while (buffer.hasRemaining()) {
+            currentBytes += channel.write(buffer);
+        }
+    }
+
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void roll(long now) throws IOException {
+        close();
+        Files.createDirectories(directory);
+
+        String timestamp = LocalDateTime.now().format(FILE_TIMESTAMP);
+        currentFile = directory.resolve(String.format("%s-%s-%03d%s", baseName, timestamp, fileSequence++ % 1000, SUFFIX));
+        channel = FileChannel.open(currentFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentBytes = channel.size();
+        openedAtMillis = now;
+
+        enforceRetention();
+    }
+
+    private void enforceRetention() {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> path.getFileName().toString().startsWith(baseName + "-"))
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            logger.warning("Failed to list metrics directory: " + e.getMessage());
+            return;
+        }
+
+        // Names sort by creation time, and the current file is always the newest.
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                logger.warning(String.format("Failed to delete old metrics file %s: %s", files.get(i), e.getMessage()));
+            }
+        }
+    }
+}
@@ -1,74 +1,146 @@
 package lii.concurqueuesystem.monitor;
 
+import lii.concurqueuesystem.config.SystemConfig;
+import lii.concurqueuesystem.consumer.StallWatchdog;
+import lii.concurqueuesystem.consumer.WorkerPoolAutoscaler;
+import lii.concurqueuesystem.enums.LatencyType;
+import lii.concurqueuesystem.enums.MetricsExportMode;
+import lii.concurqueuesystem.enums.PriorityBand;
 import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
 import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.producer.RateLimiterRegistry;
+import lii.concurqueuesystem.producer.TokenBucketRateLimiter;
+import lii.concurqueuesystem.queue.AdmissionStats;
+import lii.concurqueuesystem.queue.FairShareQueue;
+import lii.concurqueuesystem.queue.IdempotencyCache;
+import lii.concurqueuesystem.status.TaskStatusStore;
 import lii.concurqueuesystem.util.DisplayFormatter;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class SystemMonitor implements Runnable {
 
     private static final Logger logger = Logger.getLogger(SystemMonitor.class.getName());
     private static final long MONITOR_INTERVAL_MS = 5000;
     private static final long EXPORT_INTERVAL_MS = 60000;
+    private static final long MIN_METRICS_INTERVAL_MS = 1000;
 
     private final BlockingQueue<Task> taskQueue;
     private final BlockingQueue<Task> retryQueue;
     private final ThreadPoolExecutor workerPool;
-    private final ConcurrentHashMap<String, TaskStatus> taskStatusMap;
+    private final TaskStatusStore taskStatusStore;
     private final AtomicBoolean shutdown;
     private final AtomicInteger tasksProcessed;
     private final AtomicLong totalProcessingTime;
+    private final AtomicInteger tasksExpired;
+    private final AtomicInteger tasksInFlight;
+    private final SystemConfig config;
+    private final AdmissionStats admissionStats;
+    private final LatencyMetrics latencyMetrics;
+    private final StallWatchdog stallWatchdog;
+    private final WorkerPoolAutoscaler autoscaler;
+    private final IdempotencyCache idempotencyCache;
+    private final RateLimiterRegistry rateLimiters;
+    private final FairShareQueue fairShareQueue;
 
     private long lastExportTime;
+    private long lastStalledTasks;
     private final AtomicInteger monitorCycles;
+    private final RollingMetricsWriter metricsWriter;
+    private final long metricsIntervalMillis;
 
     public SystemMonitor(BlockingQueue<Task> taskQueue,
                          BlockingQueue<Task> retryQueue,
                          ThreadPoolExecutor workerPool,
-                         ConcurrentHashMap<String, TaskStatus> taskStatusMap,
+                         TaskStatusStore taskStatusStore,
                          AtomicBoolean shutdown,
                          AtomicInteger tasksProcessed,
-                         AtomicLong totalProcessingTime) {
+                         AtomicLong totalProcessingTime,
+                         AtomicInteger tasksExpired,
+                         AtomicInteger tasksInFlight,
+                         SystemConfig config,
+                         AdmissionStats admissionStats,
+                         LatencyMetrics latencyMetrics,
+                         StallWatchdog stallWatchdog,
+                         WorkerPoolAutoscaler autoscaler,
+                         IdempotencyCache idempotencyCache,
+                         RateLimiterRegistry rateLimiters,
+                         FairShareQueue fairShareQueue) {
         this.taskQueue = taskQueue;
         this.retryQueue = retryQueue;
         this.workerPool = workerPool;
-        this.taskStatusMap = taskStatusMap;
+        this.taskStatusStore = taskStatusStore;
         this.shutdown = shutdown;
         this.tasksProcessed = tasksProcessed;
         this.totalProcessingTime = totalProcessingTime;
+        this.tasksExpired = tasksExpired;
+        this.tasksInFlight = tasksInFlight;
+        this.config = config;
+        this.admissionStats = admissionStats;
+        this.latencyMetrics = latencyMetrics;
+        this.stallWatchdog = stallWatchdog;
+        this.autoscaler = autoscaler;
+        this.idempotencyCache = idempotencyCache;
+        this.rateLimiters = rateLimiters;
+        this.fairShareQueue = fairShareQueue;
         this.lastExportTime = System.currentTimeMillis();
         this.monitorCycles = new AtomicInteger(0);
+        this.metricsWriter = config.getMetricsExportMode() == MetricsExportMode.NDJSON_STREAM
+                ? new RollingMetricsWriter(
+                        Path.of(config.getMetricsDirectory()),
+                        "concur_queue_metrics",
+                        config.getMetricsMaxFileBytes(),
+                        config.getMetricsRollIntervalMillis(),
+                        config.getMetricsMaxFiles())
+                : null;
+        this.metricsIntervalMillis = Math.max(MIN_METRICS_INTERVAL_MS, config.getMetricsIntervalMillis());
     }
 
     @Override
     public void run() {
         logger.info("System monitor started");
 
+        long nextDisplayAt = 0;
+        long nextSampleAt = System.currentTimeMillis() + metricsIntervalMillis;
         while (!shutdown.get()) {
             try {
-                logSystemStatus();
+                long now = System.currentTimeMillis();
+                if (now >= nextDisplayAt) {
+                    logSystemStatus();
 
-                detectStalledTasks();
+                    detectStalledTasks();
 
-                if (shouldExportToJson()) {
-                    exportTaskStatusToJson();
-                    lastExportTime = System.currentTimeMillis();
+                    taskStatusStore.evictExpired();
+
+                    if (config.getMetricsExportMode() == MetricsExportMode.SNAPSHOT_FILES && shouldExportToJson()) {
+                        exportTaskStatusToJson();
+                        lastExportTime = System.currentTimeMillis();
+                    }
+
+                    monitorCycles.incrementAndGet();
+                    nextDisplayAt = now + MONITOR_INTERVAL_MS;
+                }
+
+                if (metricsWriter != null && now >= nextSampleAt) {
+                    streamMetrics();
+                    nextSampleAt = now + metricsIntervalMillis;
                 }
 
-                monitorCycles.incrementAndGet();
-                Thread.sleep(MONITOR_INTERVAL_MS);
+                long wakeAt = metricsWriter != null ? Math.min(nextDisplayAt, nextSampleAt) : nextDisplayAt;
+                Thread.sleep(Math.max(1, wakeAt - System.currentTimeMillis()));
 
             } catch (InterruptedException e) {
                 logger.info("System monitor interrupted");
@@ -79,6 +151,7 @@ public class SystemMonitor implements Runnable {
             }
         }
 
+        closeMetricsWriter();
         logger.info("System monitor shutting down");
     }
 
@@ -92,33 +165,47 @@ public class SystemMonitor implements Runnable {
                 metrics.corePoolSize,
                 metrics.maximumPoolSize,
                 metrics.completedTaskCount,
-                metrics.submittedCount,
-                metrics.processingCount,
-                metrics.completedCount,
-                metrics.failedCount,
-                metrics.retryCount,
-                metrics.abandonedCount,
+                metrics.statusCount(TaskStatus.SUBMITTED),
+                metrics.statusCount(TaskStatus.PROCESSING),
+                metrics.statusCount(TaskStatus.COMPLETED),
+                metrics.statusCount(TaskStatus.FAILED),
+                metrics.statusCount(TaskStatus.RETRY),
+                metrics.statusCount(TaskStatus.ABANDONED),
                 metrics.totalProcessed,
                 metrics.averageProcessingTime
         );
 
         System.out.print(statusDisplay);
+
+        System.out.print(DisplayFormatter.createAdmissionStatusDisplay(
+                config.getAdmissionPolicy().name(),
+                metrics.queueCapacity,
+                metrics.admittedCount,
+                metrics.rejectedCount,
+                metrics.timedOutCount,
+                metrics.droppedLowestCount,
+                metrics.droppedOldestCount
+        ));
+
+        System.out.print(DisplayFormatter.createLatencyDisplay(latencyMetrics));
     }
 
     private void detectStalledTasks() {
-        long currentTime = System.currentTimeMillis();
-        long stalledThreshold = 30000;
+        if (stallWatchdog == null) {
+            return;
+        }
 
-        int stalledCount = 0;
-        for (Map.Entry<String, TaskStatus> entry : taskStatusMap.entrySet()) {
-            if (entry.getValue() == TaskStatus.PROCESSING  ) {
-                stalledCount++;
-            }
+        long stalledTasks = stallWatchdog.getStalledTasks();
+        if (stalledTasks > lastStalledTasks) {
+            logger.warning(String.format("Stalled tasks detected: %d since last check (%d total), %d workers replaced",
+                    stalledTasks - lastStalledTasks, stalledTasks, stallWatchdog.getReplacedWorkers()));
         }
+        lastStalledTasks = stalledTasks;
 
-        if (stalledCount > 0) {
-            logger.warning(String.format("Potential stalled tasks detected: %d tasks in PROCESSING state",
-                    stalledCount));
+        int inFlight = stallWatchdog.getInFlightCount();
+        if (inFlight > 0) {
+            logger.info(String.format("%d tasks in flight, oldest running for %d ms",
+                    inFlight, stallWatchdog.getOldestInFlightMillis()));
         }
     }
 
@@ -128,8 +215,7 @@ public class SystemMonitor implements Runnable {
 
     private void exportTaskStatusToJson() {
         try {
-            SystemMetrics metrics = collectMetrics();
-            String json = generateJsonReport(metrics);
+            String json = generateJsonReport();
 
             String filename = String.format("concur_queue_status_%d.json", System.currentTimeMillis());
             try (FileWriter writer = new FileWriter(filename)) {
@@ -143,82 +229,273 @@ public class SystemMonitor implements Runnable {
         }
     }
 
+    private void streamMetrics() {
+        try {
+            StringJoiner line = new StringJoiner(",", "{", "}");
+            reportSections(collectMetrics()).forEach(line::add);
+            metricsWriter.appendLine(line.toString());
+        } catch (IOException e) {
+            logger.severe("Failed to append metrics sample: " + e.getMessage());
+        }
+    }
+
+    private void closeMetricsWriter() {
+        if (metricsWriter == null) {
+            return;
+        }
+        // Shutdown interrupts this thread, and an interrupted thread cannot write to a FileChannel.
+        boolean interrupted = Thread.interrupted();
+        try {
+            streamMetrics();
+            metricsWriter.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close metrics stream: " + e.getMessage());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private SystemMetrics collectMetrics() {
         SystemMetrics metrics = new SystemMetrics();
 
         metrics.mainQueueSize = taskQueue.size();
         metrics.retryQueueSize = retryQueue.size();
+        metrics.queueCapacity = config.getQueueCapacity();
 
         metrics.activeThreads = workerPool.getActiveCount();
         metrics.corePoolSize = workerPool.getCorePoolSize();
         metrics.maximumPoolSize = workerPool.getMaximumPoolSize();
         metrics.completedTaskCount = workerPool.getCompletedTaskCount();
 
-        Map<TaskStatus, Long> statusCounts = taskStatusMap.values().stream()
-                .collect(Collectors.groupingBy(status -> status, Collectors.counting()));
+        for (TaskStatus status : TaskStatus.values()) {
+            metrics.statusCounts[status.ordinal()] = taskStatusStore.count(status);
+        }
+        metrics.retainedStatusCount = taskStatusStore.size();
+        metrics.evictedStatusCount = taskStatusStore.getEvicted();
 
-        metrics.submittedCount = statusCounts.getOrDefault(TaskStatus.SUBMITTED, 0L).intValue();
-        metrics.processingCount = statusCounts.getOrDefault(TaskStatus.PROCESSING, 0L).intValue();
-        metrics.completedCount = statusCounts.getOrDefault(TaskStatus.COMPLETED, 0L).intValue();
-        metrics.failedCount = statusCounts.getOrDefault(TaskStatus.FAILED, 0L).intValue();
-        metrics.retryCount = statusCounts.getOrDefault(TaskStatus.RETRY, 0L).intValue();
-        metrics.abandonedCount = statusCounts.getOrDefault(TaskStatus.ABANDONED, 0L).intValue();
+        metrics.admittedCount = admissionStats.getAdmitted();
+        metrics.rejectedCount = admissionStats.getRejected();
+        metrics.timedOutCount = admissionStats.getTimedOut();
+        metrics.droppedLowestCount = admissionStats.getDroppedLowest();
+        metrics.droppedOldestCount = admissionStats.getDroppedOldest();
 
         metrics.totalProcessed = tasksProcessed.get();
+        metrics.totalExpired = tasksExpired.get();
+        metrics.inFlight = tasksInFlight.get();
         metrics.averageProcessingTime = metrics.totalProcessed > 0 ?
                 (double) totalProcessingTime.get() / metrics.totalProcessed : 0.0;
 
         return metrics;
     }
 
-    private String generateJsonReport(SystemMetrics metrics) {
-        StringBuilder json = new StringBuilder();
-        json.append("{\n");
-        json.append("  \"timestamp\": \"").append(Instant.now().toString()).append("\",\n");
-        json.append("  \"monitor_cycle\": ").append(monitorCycles.get()).append(",\n");
-        json.append("  \"queues\": {\n");
-        json.append("    \"main_queue_size\": ").append(metrics.mainQueueSize).append(",\n");
-        json.append("    \"retry_queue_size\": ").append(metrics.retryQueueSize).append("\n");
-        json.append("  },\n");
-        json.append("  \"thread_pool\": {\n");
-        json.append("    \"active_threads\": ").append(metrics.activeThreads).append(",\n");
-        json.append("    \"core_pool_size\": ").append(metrics.corePoolSize).append(",\n");
-        json.append("    \"maximum_pool_size\": ").append(metrics.maximumPoolSize).append(",\n");
-        json.append("    \"completed_task_count\": ").append(metrics.completedTaskCount).append("\n");
-        json.append("  },\n");
-        json.append("  \"task_status\": {\n");
-        json.append("    \"submitted\": ").append(metrics.submittedCount).append(",\n");
-        json.append("    \"processing\": ").append(metrics.processingCount).append(",\n");
-        json.append("    \"completed\": ").append(metrics.completedCount).append(",\n");
-        json.append("    \"failed\": ").append(metrics.failedCount).append(",\n");
-        json.append("    \"retry\": ").append(metrics.retryCount).append(",\n");
-        json.append("    \"abandoned\": ").append(metrics.abandonedCount).append("\n");
-        json.append("  },\n");
-        json.append("  \"performance\": {\n");
-        json.append("    \"total_processed\": ").append(metrics.totalProcessed).append(",\n");
-        json.append("    \"average_processing_time_ms\": ").append(String.format("%.2f", metrics.averageProcessingTime)).append("\n");
-        json.append("  }\n");
-        json.append("}\n");
-
-        return json.toString();
+    String generateJsonReport() {
+        StringJoiner report = new StringJoiner(",\n  ", "{\n  ", "\n}\n");
+        reportSections(collectMetrics()).forEach(report::add);
+        return report.toString();
     }
 
+    // The snapshot file puts each section on its own line and the stream joins them into one NDJSON line,
+    // so both carry the same keys.
+    private List<String> reportSections(SystemMetrics metrics) {
+        List<String> sections = new ArrayList<>();
+        sections.add(field("timestamp", quote(Instant.now().toString())));
+        sections.add(field("monitor_cycle", monitorCycles.get()));
+        sections.add(field("queues", jsonObject()
+                .add(field("main_queue_size", metrics.mainQueueSize))
+                .add(field("retry_queue_size", metrics.retryQueueSize))
+                .add(field("main_queue_capacity", metrics.queueCapacity))));
+        sections.add(field("admission", jsonObject()
+                .add(field("policy", quote(config.getAdmissionPolicy().name())))
+                .add(field("admitted", metrics.admittedCount))
+                .add(field("rejected", metrics.rejectedCount))
+                .add(field("timed_out", metrics.timedOutCount))
+                .add(field("dropped_lowest_priority", metrics.droppedLowestCount))
+                .add(field("dropped_oldest", metrics.droppedOldestCount))));
+        sections.add(field("thread_pool", jsonObject()
+                .add(field("worker_mode", quote(config.getWorkerMode().name())))
+                .add(field("active_threads", metrics.activeThreads))
+                .add(field("core_pool_size", metrics.corePoolSize))
+                .add(field("maximum_pool_size", metrics.maximumPoolSize))
+                .add(field("completed_task_count", metrics.completedTaskCount))));
+        sections.add(field("task_status", taskStatusJson(metrics)));
+        sections.add(field("performance", jsonObject()
+                .add(field("total_processed", metrics.totalProcessed))
+                .add(field("total_expired", metrics.totalExpired))
+                .add(field("in_flight", metrics.inFlight))
+                .add(field("average_processing_time_ms", round2(metrics.averageProcessingTime)))));
+        sections.add(field("latency_ms", latencyJson()));
+        sections.add(field("max_queue_wait_ms", maxQueueWaitJson()));
+        if (autoscaler != null) {
+            sections.add(field("autoscaler", autoscalerJson()));
+        }
+        if (idempotencyCache != null) {
+            sections.add(field("deduplication", deduplicationJson()));
+        }
+        if (rateLimiters != null) {
+            sections.add(field("rate_limits", rateLimitJson()));
+        }
+        if (fairShareQueue != null) {
+            sections.add(field("fair_share", fairShareJson()));
+        }
+        return sections;
+    }
+
+    private StringJoiner taskStatusJson(SystemMetrics metrics) {
+        StringJoiner json = jsonObject();
+        for (TaskStatus status : TaskStatus.values()) {
+            json.add(field(status.name().toLowerCase(), metrics.statusCounts[status.ordinal()]));
+        }
+        return json.add(field("retained_entries", metrics.retainedStatusCount))
+                .add(field("evicted_entries", metrics.evictedStatusCount));
+    }
+
+    private StringJoiner latencyJson() {
+        StringJoiner json = jsonObject();
+        for (LatencyType type : LatencyType.values()) {
+            StringJoiner bands = jsonObject();
+            for (PriorityBand band : PriorityBand.values()) {
+                bands.add(field(band.name().toLowerCase(), jsonObject()
+                        .add(field("count", latencyMetrics.getCount(type, band)))
+                        .add(field("p50", round2(latencyMetrics.getPercentileMillis(type, band, 50.0))))
+                        .add(field("p90", round2(latencyMetrics.getPercentileMillis(type, band, 90.0))))
+                        .add(field("p99", round2(latencyMetrics.getPercentileMillis(type, band, 99.0))))
+                        .add(field("p999", round2(latencyMetrics.getPercentileMillis(type, band, 99.9))))
+                        .add(field("max", round2(latencyMetrics.getMaxMillis(type, band))))));
+            }
+            json.add(field(type.name().toLowerCase(), bands));
+        }
+        return json;
+    }
+
+    private StringJoiner maxQueueWaitJson() {
+        StringJoiner json = jsonObject();
+        for (int priority = Task.MAX_PRIORITY; priority >= Task.MIN_PRIORITY; priority--) {
+            json.add(field(String.valueOf(priority), round2(latencyMetrics.getMaxQueueWaitMillis(priority))));
+        }
+        return json;
+    }
+
+    private StringJoiner autoscalerJson() {
+        // Each decision is exported once, in whichever report runs next after it was made.
+        StringJoiner decisions = new StringJoiner(",", "[", "]");
+        autoscaler.drainDecisions(decision -> decisions.add(jsonObject()
+                .add(field("timestamp", quote(decision.getTimestamp().toString())))
+                .add(field("direction", quote(decision.getDirection().name())))
+                .add(field("from_workers", decision.getFromWorkers()))
+                .add(field("to_workers", decision.getToWorkers()))
+                .add(field("queue_depth", decision.getQueueDepth()))
+                .add(field("growth_per_second", round2(decision.getGrowthPerSecond())))
+                .add(field("queue_wait_ms", round2(decision.getQueueWaitMillis())))
+                .add(field("utilization", round2(decision.getUtilization())))
+                .toString()));
+        return jsonObject()
+                .add(field("workers", autoscaler.getWorkerCount()))
+                .add(field("min_workers", autoscaler.getMinWorkers()))
+                .add(field("max_workers", autoscaler.getMaxWorkers()))
+                .add(field("scale_ups", autoscaler.getScaleUps()))
+                .add(field("scale_downs", autoscaler.getScaleDowns()))
+                .add(field("decisions", decisions));
+    }
+
+    private StringJoiner deduplicationJson() {
+        return jsonObject()
+                .add(field("window_ms", idempotencyCache.getWindowMillis()))
+                .add(field("keys", idempotencyCache.size()))
+                .add(field("max_keys", idempotencyCache.getMaxKeys()))
+                .add(field("hits", idempotencyCache.getHits()))
+                .add(field("misses", idempotencyCache.getMisses()))
+                .add(field("evictions", idempotencyCache.getEvictions()));
+    }
+
+    private StringJoiner rateLimitJson() {
+        StringJoiner json = jsonObject();
+        for (TokenBucketRateLimiter limiter : rateLimiters.getLimiters()) {
+            json.add(field(limiter.getProducerName(), jsonObject()
+                    .add(field("mode", quote(limiter.getMode().name())))
+                    .add(field("sustained_per_second", round2(limiter.getSustainedPerSecond())))
+                    .add(field("burst", limiter.getBurst()))
+                    .add(field("permitted", limiter.getPermitted()))
+                    .add(field("throttled", limiter.getThrottled()))
+                    .add(field("throttled_ms", limiter.getThrottledMillis()))
+                    .add(field("rejected", limiter.getRejected()))
+                    .add(field("shed", limiter.getShed()))));
+        }
+        return json;
+    }
+
+    private StringJoiner fairShareJson() {
+        StringJoiner json = jsonObject();
+        for (FairShareQueue.TenantShare share : fairShareQueue.getTenantShares()) {
+            json.add(field(share.getTenant(), jsonObject()
+                    .add(field("weight", share.getWeight()))
+                    .add(field("queued", share.getQueued()))
+                    .add(field("dequeued", share.getDequeued()))));
+        }
+        return json;
+    }
+
+    private static StringJoiner jsonObject() {
+        return new StringJoiner(",", "{", "}");
+    }
+
+    // Values are written as given, so string values must already be quoted.
+    private static String field(String name, Object value) {
+        return quote(name) + ":" + value;
+    }
+
+    // Producer and tenant names come from configuration and may hold quotes, backslashes or control characters.
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
 
     private static class SystemMetrics {
         int mainQueueSize;
         int retryQueueSize;
+        int queueCapacity;
         int activeThreads;
         int corePoolSize;
         int maximumPoolSize;
         long completedTaskCount;
-        int submittedCount;
-        int processingCount;
-        int completedCount;
-        int failedCount;
-        int retryCount;
-        int abandonedCount;
+        final long[] statusCounts = new long[TaskStatus.values().length];
+        int retainedStatusCount;
+        long evictedStatusCount;
+        long admittedCount;
+        long rejectedCount;
+        long timedOutCount;
+        long droppedLowestCount;
+        long droppedOldestCount;
         int totalProcessed;
+        int totalExpired;
+        int inFlight;
         double averageProcessingTime;
+
+        int statusCount(TaskStatus status) {
+            return (int) statusCounts[status.ordinal()];
+        }
     }
 
 }
@@ -0,0 +1,107 @@
+package lii.concurqueuesystem.persistence;
+
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.BulkTaskQueue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class JournaledTaskQueue extends AbstractQueue<Task> implements BlockingQueue<Task>, BulkTaskQueue {
+
+    private final BlockingQueue<Task> delegate;
+    private final TaskWriteAheadLog writeAheadLog;
+
+    public JournaledTaskQueue(BlockingQueue<Task> delegate, TaskWriteAheadLog writeAheadLog) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.writeAheadLog = Objects.requireNonNull(writeAheadLog);
+    }
+
+    // The record is appended before the hand-off so a worker can never finish a task the log has not seen;
+    // a rejected offer is tombstoned when the caller marks the task DROPPED.
+    @Override
+    public boolean offer(Task task) {
+        writeAheadLog.appendEnqueue(task);
+        return delegate.offer(task);
+    }
+
+    @Override
+    public boolean offer(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        writeAheadLog.appendEnqueue(task);
+        return delegate.offer(task, timeout, unit);
+    }
+
+    @Override
+    public void put(Task task) throws InterruptedException {
+        writeAheadLog.appendEnqueue(task);
+        delegate.put(task);
+    }
+
+    @Override
+    public List<Task> offerAll(List<Task> tasks, long timeout, TimeUnit unit) {
+        writeAheadLog.appendEnqueueAll(tasks);
+        return BulkTaskQueue.offerAll(delegate, tasks, timeout, unit);
+    }
+
+    @Override
+    public Task poll() {
+        return delegate.poll();
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        return delegate.take();
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.poll(timeout, unit);
+    }
+
+    @Override
+    public Task peek() {
+        return delegate.peek();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target) {
+        return delegate.drainTo(target);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target, int maxElements) {
+        return delegate.drainTo(target, maxElements);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return delegate.remove(o);
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return delegate.iterator();
+    }
+
+    public BlockingQueue<Task> getDelegate() {
+        return delegate;
+    }
+
+    public TaskWriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+}
@@ -0,0 +1,133 @@
+package lii.concurqueuesystem.persistence;
+
+import lii.concurqueuesystem.codec.TaskCodec;
+import lii.concurqueuesystem.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class QueueSnapshot {
+
+    private static final int MAGIC = 0x43515353;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final List<Task> mainQueueTasks;
+    private final List<Task> retryQueueTasks;
+
+    public QueueSnapshot(List<Task> mainQueueTasks, List<Task> retryQueueTasks) {
+        this.mainQueueTasks = mainQueueTasks;
+        this.retryQueueTasks = retryQueueTasks;
+    }
+
+    public List<Task> getMainQueueTasks() {
+        return mainQueueTasks;
+    }
+
+    public List<Task> getRetryQueueTasks() {
+        return retryQueueTasks;
+    }
+
+    public int size() {
+        return mainQueueTasks.size() + retryQueueTasks.size();
+    }
+
+    public void writeTo(Path file, TaskCodec codec) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION)
+                    .putInt(mainQueueTasks.size()).putInt(retryQueueTasks.size());
+            buffer = writeTasks(channel, buffer, codec, crc, mainQueueTasks);
+            buffer = writeTasks(channel, buffer, codec, crc, retryQueueTasks);
+
+            // The checksum covers everything before it, so it is written outside the running CRC.
+            flush(channel, buffer, crc);
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        // Rename last so a crash mid-write never leaves a half snapshot under the real name.
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static QueueSnapshot readFrom(Path file, TaskCodec codec) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 24) {
+            throw new IOException("Snapshot file too short: " + file);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, buffer.limit() - 8));
+        if (crc.getValue() != buffer.getLong(buffer.limit() - 8)) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Unrecognised snapshot format: " + file);
+        }
+
+        int mainCount = buffer.getInt();
+        int retryCount = buffer.getInt();
+        try {
+            return new QueueSnapshot(readTasks(buffer, codec, mainCount), readTasks(buffer, codec, retryCount));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer writeTasks(FileChannel channel, ByteBuffer buffer, TaskCodec codec,
+                                         CRC32 crc, Collection<Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            int size = codec.encodedSize(task);
+            if (buffer.remaining() < size + 4) {
+                flush(channel, buffer, crc);
+                if (buffer.remaining() < size + 4) {
+                    buffer = ByteBuffer.allocateDirect(size + 4);
+                }
+            }
+            buffer.putInt(size);
+            codec.encode(task, buffer);
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static List<Task> readTasks(ByteBuffer buffer, TaskCodec codec, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative task count " + count);
+        }
+        List<Task> tasks = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            int size = buffer.getInt();
+            tasks.add(codec.decode(buffer.slice(buffer.position(), size)));
+            buffer.position(buffer.position() + size);
+        }
+        return tasks;
+    }
+}
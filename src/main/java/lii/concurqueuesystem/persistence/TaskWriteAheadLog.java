@@ -0,0 +1,525 @@
+package lii.concurqueuesystem.persistence;
+
+import lii.concurqueuesystem.codec.BinaryTaskCodec;
+import lii.concurqueuesystem.codec.TaskCodec;
+import lii.concurqueuesystem.enums.SyncPolicy;
+import lii.concurqueuesystem.model.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class TaskWriteAheadLog implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(TaskWriteAheadLog.class.getName());
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte ENQUEUE = 1;
+    private static final byte TOMBSTONE = 2;
+    // [int bodyLength][byte type] ... [int crc]; a zero length marks the preallocated tail.
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4;
+    private static final int TOMBSTONE_BODY = 16;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final SyncPolicy syncPolicy;
+    private final long syncIntervalNanos;
+    private final TaskCodec codec;
+
+    private final ReentrantLock appendLock;
+    private final Deque<Segment> segments;
+    private final Map<UUID, Segment> liveRecords;
+    private final List<Task> recoveredTasks;
+    private Segment active;
+    private long nextSegmentSequence;
+    private volatile long writtenSequence;
+
+    private final ReentrantLock syncLock;
+    private final Condition pendingWrites;
+    private final Condition synced;
+    private volatile long syncedSequence;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private final LongAdder enqueueRecords;
+    private final LongAdder tombstoneRecords;
+    private final LongAdder syncs;
+    private final LongAdder deletedSegments;
+
+    public TaskWriteAheadLog(Path directory, int segmentBytes, SyncPolicy syncPolicy, long syncIntervalMillis) {
+        this(directory, segmentBytes, syncPolicy, syncIntervalMillis, new BinaryTaskCodec());
+    }
+
+    public TaskWriteAheadLog(Path directory, int segmentBytes, SyncPolicy syncPolicy, long syncIntervalMillis,
+                             TaskCodec codec) {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("WAL segment size must be at least 4096 bytes: " + segmentBytes);
+        }
+        this.directory = Objects.requireNonNull(directory);
+        this.segmentBytes = segmentBytes;
+        this.syncPolicy = Objects.requireNonNull(syncPolicy);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncIntervalMillis));
+        this.codec = Objects.requireNonNull(codec);
+
+        this.appendLock = new ReentrantLock();
+        this.segments = new ArrayDeque<>();
+        this.liveRecords = new HashMap<>();
+        this.syncLock = new ReentrantLock();
+        this.pendingWrites = syncLock.newCondition();
+        this.synced = syncLock.newCondition();
+
+        this.enqueueRecords = new LongAdder();
+        this.tombstoneRecords = new LongAdder();
+        this.syncs = new LongAdder();
+        this.deletedSegments = new LongAdder();
+
+        try {
+            Files.createDirectories(directory);
+            this.recoveredTasks = recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + directory, e);
+        }
+
+        if (syncPolicy == SyncPolicy.EVERY_WRITE) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::runFlusher, "WalFlusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    public List<Task> takeRecoveredTasks() {
+        List<Task> tasks = new ArrayList<>(recoveredTasks);
+        recoveredTasks.clear();
+        return tasks;
+    }
+
+    public void appendEnqueue(Task task) {
+        int bodyLength = codec.encodedSize(task);
+        long sequence;
+        appendLock.lock();
+        try {
+            ensureOpen();
+            ByteBuffer buffer = reserve(bodyLength);
+            int start = buffer.position();
+            boolean replaced = writeEnqueue(task, bodyLength, buffer);
+            sequence = writtenSequence;
+            syncIfRequired(start);
+            if (replaced) {
+                deleteDeadSegments();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        enqueueRecords.increment();
+        awaitDurable(sequence);
+    }
+
+    // A batch takes the append lock once and pays for one sync and one durability wait.
+    public void appendEnqueueAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int[] bodyLengths = new int[tasks.size()];
+        for (int i = 0; i < bodyLengths.length; i++) {
+            bodyLengths[i] = codec.encodedSize(tasks.get(i));
+        }
+        long sequence;
+        appendLock.lock();
+        try {
+            ensureOpen();
+            boolean replaced = false;
+            Segment unsynced = null;
+            int start = 0;
+            for (int i = 0; i < bodyLengths.length; i++) {
+                ByteBuffer buffer = reserve(bodyLengths[i]);
+                // Rolling over forces the old segment, so only the tail written to the active one is left to sync.
+                if (active != unsynced) {
+                    unsynced = active;
+                    start = buffer.position();
+                }
+                replaced |= writeEnqueue(tasks.get(i), bodyLengths[i], buffer);
+            }
+            sequence = writtenSequence;
+            syncIfRequired(start);
+            if (replaced) {
+                deleteDeadSegments();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        enqueueRecords.add(tasks.size());
+        awaitDurable(sequence);
+    }
+
+    public void appendTombstone(UUID taskId) {
+        long sequence;
+        appendLock.lock();
+        try {
+            Segment owner = liveRecords.remove(taskId);
+            if (owner == null || closed) {
+                return;
+            }
+            owner.live--;
+
+            ByteBuffer buffer = reserve(TOMBSTONE_BODY);
+            int start = buffer.position();
+            buffer.putInt(TOMBSTONE_BODY).put(TOMBSTONE);
+            buffer.putLong(taskId.getMostSignificantBits()).putLong(taskId.getLeastSignificantBits());
+            finishRecord(buffer, start);
+
+            sequence = ++writtenSequence;
+            syncIfRequired(start);
+            deleteDeadSegments();
+        } finally {
+            appendLock.unlock();
+        }
+        tombstoneRecords.increment();
+        // Losing a tombstone only replays a finished task, so completions never wait on a flush.
+        signalFlusher(sequence);
+    }
+
+    public int getLiveRecordCount() {
+        appendLock.lock();
+        try {
+            return liveRecords.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        appendLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long getEnqueueRecords() {
+        return enqueueRecords.sum();
+    }
+
+    public long getTombstoneRecords() {
+        return tombstoneRecords.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    public long getDeletedSegments() {
+        return deletedSegments.sum();
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+            syncs.increment();
+        } finally {
+            appendLock.unlock();
+        }
+
+        syncLock.lock();
+        try {
+            syncedSequence = writtenSequence;
+            pendingWrites.signalAll();
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        logger.info(String.format("Write-ahead log closed with %d live records in %d segments",
+                liveRecords.size(), segments.size()));
+    }
+
+    private List<Task> recover() throws IOException {
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        Map<UUID, Task> live = new LinkedHashMap<>();
+        for (Path path : existing) {
+            nextSegmentSequence = Math.max(nextSegmentSequence, sequenceOf(path) + 1);
+            replaySegment(path, live);
+        }
+
+        active = openSegment();
+        for (Task task : live.values()) {
+            ByteBuffer buffer = reserve(codec.encodedSize(task));
+            int start = buffer.position();
+            buffer.putInt(codec.encodedSize(task)).put(ENQUEUE);
+            codec.encode(task, buffer);
+            finishRecord(buffer, start);
+            liveRecords.put(task.getId(), active);
+            active.live++;
+        }
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+
+        // The compacted copy is durable, so the replayed segments can go.
+        for (Path path : existing) {
+            Files.deleteIfExists(path);
+        }
+
+        if (!existing.isEmpty()) {
+            logger.info(String.format("Recovered %d unacknowledged tasks from %d write-ahead log segments",
+                    live.size(), existing.size()));
+        }
+        return new ArrayList<>(live.values());
+    }
+
+    private void replaySegment(Path path, Map<UUID, Task> live) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                int start = buffer.position();
+                int bodyLength = buffer.getInt();
+                if (bodyLength == 0) {
+                    return;
+                }
+                if (bodyLength < 0 || bodyLength > buffer.remaining() - 5) {
+                    logger.warning(String.format("Truncated record at offset %d in %s", start, path.getFileName()));
+                    return;
+                }
+
+                crc.reset();
+                crc.update(buffer.slice(start + 4, bodyLength + 1));
+                byte type = buffer.get();
+                ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+                buffer.position(buffer.position() + bodyLength);
+                if ((int) crc.getValue() != buffer.getInt()) {
+                    logger.warning(String.format("Checksum mismatch at offset %d in %s", start, path.getFileName()));
+                    return;
+                }
+
+                try {
+                    if (type == ENQUEUE) {
+                        Task task = codec.decode(body);
+                        live.remove(task.getId());
+                        live.put(task.getId(), task);
+                    } else if (type == TOMBSTONE) {
+                        live.remove(new UUID(body.getLong(), body.getLong()));
+                    }
+                } catch (IllegalArgumentException | BufferUnderflowException e) {
+                    logger.warning(String.format("Skipping unreadable record at offset %d in %s: %s",
+                            start, path.getFileName(), e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private ByteBuffer reserve(int bodyLength) {
+        int recordLength = RECORD_OVERHEAD + bodyLength;
+        // Keep room for the zero length that terminates the segment.
+        if (recordLength + 4 > segmentBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "Record of %d bytes does not fit a %d byte WAL segment", recordLength, segmentBytes));
+        }
+        if (active.buffer.remaining() < recordLength + 4) {
+            active.buffer.force();
+            syncs.increment();
+            active = openSegment();
+        }
+        return active.buffer;
+    }
+
+    private boolean writeEnqueue(Task task, int bodyLength, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(bodyLength).put(ENQUEUE);
+        codec.encode(task, buffer);
+        finishRecord(buffer, start);
+
+        Segment previous = liveRecords.put(task.getId(), active);
+        if (previous != null) {
+            previous.live--;
+        }
+        active.live++;
+        ++writtenSequence;
+        return previous != null;
+    }
+
+    private void finishRecord(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start + 4, buffer.position() - start - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private Segment openSegment() {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, nextSegmentSequence++, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create WAL segment " + path, e);
+        }
+    }
+
+    private void deleteDeadSegments() {
+        // Only a dead prefix can go: later segments may hold tombstones for records in earlier ones.
+        while (segments.size() > 1 && segments.peekFirst().live == 0) {
+            Segment dead = segments.removeFirst();
+            try {
+                Files.deleteIfExists(dead.path);
+                deletedSegments.increment();
+            } catch (IOException e) {
+                logger.warning(String.format("Failed to delete WAL segment %s: %s", dead.path, e.getMessage()));
+            }
+        }
+    }
+
+    private void syncIfRequired(int start) {
+        if (syncPolicy == SyncPolicy.EVERY_WRITE) {
+            active.buffer.force(start, active.buffer.position() - start);
+            active.syncedPosition = active.buffer.position();
+            syncs.increment();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private void signalFlusher(long sequence) {
+        if (syncPolicy != SyncPolicy.GROUP_COMMIT || syncedSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            pendingWrites.signal();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        if (syncPolicy != SyncPolicy.GROUP_COMMIT || syncedSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            pendingWrites.signal();
+            while (syncedSequence < sequence && !closed) {
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            syncLock.lock();
+            try {
+                if (syncPolicy == SyncPolicy.PERIODIC || syncedSequence >= writtenSequence) {
+                    pendingWrites.awaitNanos(syncIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                syncLock.unlock();
+            }
+
+            long target;
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            appendLock.lock();
+            try {
+                if (closed || syncedSequence >= writtenSequence) {
+                    continue;
+                }
+                target = writtenSequence;
+                buffer = active.buffer;
+                from = active.syncedPosition;
+                to = buffer.position();
+                active.syncedPosition = to;
+            } finally {
+                appendLock.unlock();
+            }
+
+            // Rolled segments were forced when they filled, so only the active range is dirty.
+            buffer.force(from, to - from);
+            syncs.increment();
+
+            syncLock.lock();
+            try {
+                syncedSequence = target;
+                synced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int live;
+        private int syncedPosition;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
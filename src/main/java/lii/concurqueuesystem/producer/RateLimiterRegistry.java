@@ -0,0 +1,45 @@
+package lii.concurqueuesystem.producer;
+
+import lii.concurqueuesystem.enums.RateLimitMode;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class RateLimiterRegistry {
+
+    private final ConcurrentMap<String, TokenBucketRateLimiter> limiters;
+    private final double defaultSustainedPerSecond;
+    private final int defaultBurst;
+    private final RateLimitMode defaultMode;
+
+    public RateLimiterRegistry(double defaultSustainedPerSecond, int defaultBurst, RateLimitMode defaultMode) {
+        this.limiters = new ConcurrentSkipListMap<>();
+        this.defaultSustainedPerSecond = defaultSustainedPerSecond;
+        this.defaultBurst = defaultBurst;
+        this.defaultMode = Objects.requireNonNull(defaultMode);
+    }
+
+    public TokenBucketRateLimiter forProducer(String producerName) {
+        return limiters.computeIfAbsent(producerName, name ->
+                new TokenBucketRateLimiter(name, defaultSustainedPerSecond, defaultBurst, defaultMode));
+    }
+
+    // Takes effect from the producer's next token, so a running producer can be slowed down or let loose.
+    public void setLimits(String producerName, double sustainedPerSecond, int burst) {
+        forProducer(producerName).setLimits(sustainedPerSecond, burst);
+    }
+
+    public void setMode(String producerName, RateLimitMode mode) {
+        forProducer(producerName).setMode(Objects.requireNonNull(mode));
+    }
+
+    public TokenBucketRateLimiter get(String producerName) {
+        return limiters.get(producerName);
+    }
+
+    public Collection<TokenBucketRateLimiter> getLimiters() {
+        return limiters.values();
+    }
+}
@@ -1,13 +1,23 @@
 package lii.concurqueuesystem.producer;
 
+import lii.concurqueuesystem.enums.PriorityBand;
 import lii.concurqueuesystem.enums.ProducerStrategy;
+import lii.concurqueuesystem.enums.RateLimitMode;
 import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.logging.TaskLogger;
 import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.BulkTaskQueue;
+import lii.concurqueuesystem.queue.IdempotencyCache;
+import lii.concurqueuesystem.status.TaskStatusStore;
 import lombok.Getter;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
@@ -15,34 +25,56 @@ import java.util.logging.Logger;
 public class TaskProducer implements Runnable {
 
     private static final Logger logger = Logger.getLogger(TaskProducer.class.getName());
+    private static final TaskLogger taskLogger = new TaskLogger(TaskProducer.class);
 
     private final String producerName;
     private final BlockingQueue<Task> taskQueue;
-    private final ConcurrentHashMap<String, TaskStatus> taskStatusMap;
+    private final TaskStatusStore taskStatusStore;
     private final AtomicBoolean shutdown;
     private final AtomicInteger tasksProduced;
+    private final AtomicInteger tasksRejected;
+    private final AtomicInteger tasksDeduplicated;
 
     private final Random random;
     private final ProducerStrategy strategy;
     private final int tasksPerBatch;
     private final long intervalMillis;
+    private final long admissionTimeoutMillis;
+    private final Duration taskTimeToLive;
+    private final IdempotencyCache idempotencyCache;
+    private final double duplicateSubmissionRate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private Task lastSubmitted;
+    private int tasksGenerated;
 
     public TaskProducer(String producerName,
                         BlockingQueue<Task> taskQueue,
-                        ConcurrentHashMap<String, TaskStatus> taskStatusMap,
+                        TaskStatusStore taskStatusStore,
                         AtomicBoolean shutdown,
                         ProducerStrategy strategy,
                         int tasksPerBatch,
-                        long intervalMillis) {
+                        long intervalMillis,
+                        long admissionTimeoutMillis,
+                        long taskTimeToLiveMillis,
+                        IdempotencyCache idempotencyCache,
+                        double duplicateSubmissionRate,
+                        TokenBucketRateLimiter rateLimiter) {
         this.producerName = producerName;
         this.taskQueue = taskQueue;
-        this.taskStatusMap = taskStatusMap;
+        this.taskStatusStore = taskStatusStore;
         this.shutdown = shutdown;
         this.strategy = strategy;
         this.tasksPerBatch = tasksPerBatch;
         this.intervalMillis = intervalMillis;
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+        this.taskTimeToLive = taskTimeToLiveMillis > 0 ? Duration.ofMillis(taskTimeToLiveMillis) : null;
+        this.idempotencyCache = idempotencyCache;
+        this.duplicateSubmissionRate = duplicateSubmissionRate;
+        this.rateLimiter = rateLimiter;
         this.random = new Random();
         this.tasksProduced = new AtomicInteger(0);
+        this.tasksRejected = new AtomicInteger(0);
+        this.tasksDeduplicated = new AtomicInteger(0);
     }
 
     @Override
@@ -64,33 +96,137 @@ public class TaskProducer implements Runnable {
             }
         }
 
-        logger.info(String.format("Producer %s shutting down. Total tasks produced: %d",
-                producerName, tasksProduced.get()));
+        logger.info(String.format("Producer %s shutting down. Total tasks produced: %d, rejected: %d, deduplicated: %d",
+                producerName, tasksProduced.get(), tasksRejected.get(), tasksDeduplicated.get()));
     }
 
     private void produceBatch() throws InterruptedException {
+        List<Task> batch = new ArrayList<>(tasksPerBatch);
         for (int i = 0; i < tasksPerBatch; i++) {
-            Task task = generateTask();
+            batch.add(generateTask());
+        }
+        submitAll(batch);
+    }
 
-            taskQueue.put(task);
+    // Admits the whole batch with one queue operation, so upstream sources that already hold batches can hand them
+    // over directly; the status store, counters and log are updated once per batch rather than once per task.
+    public BatchResult submitAll(List<Task> tasks) throws InterruptedException {
+        List<Task> admissible = new ArrayList<>(tasks.size());
+        List<Task> rejected = new ArrayList<>();
+        int deduplicated = 0;
+        for (Task task : tasks) {
+            if (idempotencyCache != null && task.hasIdempotencyKey()) {
+                UUID original = idempotencyCache.putIfAbsent(task.getIdempotencyKey(), task.getId());
+                if (original != null) {
+                    deduplicated++;
+                    taskLogger.logTaskDeduplicated(producerName, task.getName(), original);
+                    continue;
+                }
+            }
 
-            taskStatusMap.put(task.getId().toString(), TaskStatus.SUBMITTED);
+            if (rateLimiter != null && !passRateLimit(task)) {
+                releaseIdempotencyKey(task);
+                rejected.add(task);
+                continue;
+            }
+            admissible.add(task);
+        }
+        if (deduplicated > 0) {
+            tasksDeduplicated.addAndGet(deduplicated);
+        }
+        if (admissible.isEmpty()) {
+            return new BatchResult(0, rejected, deduplicated);
+        }
 
-            tasksProduced.incrementAndGet();
+        taskStatusStore.putAll(admissible, TaskStatus.SUBMITTED);
+        for (Task task : admissible) {
+            task.markEnqueued();
+        }
 
-            logger.info(String.format("Producer %s submitted task: %s",
-                    producerName, task));
+        List<Task> turnedAway = BulkTaskQueue.offerAll(taskQueue, admissible, admissionTimeoutMillis,
+                TimeUnit.MILLISECONDS);
+        int admitted = admissible.size() - turnedAway.size();
+        tasksProduced.addAndGet(admitted);
+        if (!turnedAway.isEmpty()) {
+            taskStatusStore.putAll(turnedAway, TaskStatus.DROPPED);
+            tasksRejected.addAndGet(turnedAway.size());
+            turnedAway.forEach(this::releaseIdempotencyKey);
+            rejected.addAll(turnedAway);
+            logger.warning(String.format("Producer %s rejected %d of %d tasks: queue full",
+                    producerName, turnedAway.size(), admissible.size()));
+        }
+        // Rejections come back in submission order, so one forward pass pairs them with the batch.
+        int nextRejected = 0;
+        for (Task task : admissible) {
+            if (nextRejected < turnedAway.size() && turnedAway.get(nextRejected) == task) {
+                nextRejected++;
+            } else {
+                lastSubmitted = task;
+            }
+        }
+        taskLogger.logTasksQueued(producerName, admitted, turnedAway.size());
+        return new BatchResult(admitted, rejected, deduplicated);
+    }
+
+    private boolean passRateLimit(Task task) throws InterruptedException {
+        if (rateLimiter.tryAcquire()) {
+            return true;
+        }
+        RateLimitMode mode = rateLimiter.getMode();
+        if (mode == RateLimitMode.BLOCK
+                || (mode == RateLimitMode.SHED && PriorityBand.of(task.getPriority()) != PriorityBand.LOW)) {
+            rateLimiter.acquire();
+            return true;
+        }
+
+        if (mode == RateLimitMode.REJECT) {
+            rateLimiter.recordRejected();
+        } else {
+            rateLimiter.recordShed();
+        }
+        taskStatusStore.put(task.getId(), TaskStatus.DROPPED);
+        logger.warning(String.format("Producer %s %s task %s: over its rate limit of %.2f/s",
+                producerName, mode == RateLimitMode.REJECT ? "rejected" : "shed", task.getName(),
+                rateLimiter.getSustainedPerSecond()));
+        return false;
+    }
+
+    private void releaseIdempotencyKey(Task task) {
+        if (idempotencyCache != null && task.hasIdempotencyKey()) {
+            idempotencyCache.release(task.getIdempotencyKey(), task.getId());
         }
     }
 
     private Task generateTask() {
-        int taskNumber = tasksProduced.get() + 1;
+        // Simulates a client retrying a submission it never saw acknowledged: same work, same key, new task id.
+        if (lastSubmitted != null && random.nextDouble() < duplicateSubmissionRate) {
+            return new Task(lastSubmitted.getName(), lastSubmitted.getPriority(), lastSubmitted.getPayload(),
+                    taskTimeToLive, lastSubmitted.getIdempotencyKey());
+        }
+
+        int taskNumber = ++tasksGenerated;
         String taskName = String.format("%s-Task-%d", producerName, taskNumber);
 
         int priority = strategy.generatePriority(random);
         String payload = strategy.generatePayload(random, taskNumber);
 
-        return new Task(taskName, priority, payload);
+        // Only a producer that resubmits needs keys; without one, keys come from upstream callers of submitAll.
+        // Task numbers restart with the process, so they cannot key work that a snapshot carries across restarts.
+        String idempotencyKey = duplicateSubmissionRate > 0 ? UUID.randomUUID().toString() : null;
+        return new Task(taskName, priority, payload, taskTimeToLive, idempotencyKey);
     }
 
+    @Getter
+    public static final class BatchResult {
+        private final int admitted;
+        // Rate-limited and queue-rejected tasks, already marked DROPPED; merged duplicates are not included.
+        private final List<Task> rejected;
+        private final int deduplicated;
+
+        private BatchResult(int admitted, List<Task> rejected, int deduplicated) {
+            this.admitted = admitted;
+            this.rejected = rejected;
+            this.deduplicated = deduplicated;
+        }
+    }
 }
@@ -0,0 +1,152 @@
+package lii.concurqueuesystem.producer;
+
+import lii.concurqueuesystem.enums.RateLimitMode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// The bucket is kept as the time its next token is due, so taking a token is a single CAS and refilling needs no timer.
+public class TokenBucketRateLimiter {
+
+    private final String producerName;
+    private final AtomicLong nextTokenNanos;
+    private volatile Limits limits;
+    private volatile RateLimitMode mode;
+
+    private final LongAdder permitted;
+    private final LongAdder throttled;
+    private final LongAdder rejected;
+    private final LongAdder shed;
+    private final LongAdder throttledNanos;
+
+    public TokenBucketRateLimiter(String producerName, double sustainedPerSecond, int burst, RateLimitMode mode) {
+        this.producerName = producerName;
+        this.limits = Limits.of(sustainedPerSecond, burst);
+        this.mode = mode;
+        this.nextTokenNanos = new AtomicLong(System.nanoTime());
+        this.permitted = new LongAdder();
+        this.throttled = new LongAdder();
+        this.rejected = new LongAdder();
+        this.shed = new LongAdder();
+        this.throttledNanos = new LongAdder();
+    }
+
+    public boolean tryAcquire() {
+        Limits current = limits;
+        long now = System.nanoTime();
+        while (true) {
+            long next = nextTokenNanos.get();
+            long start = next - now > 0 ? next : now;
+            // A full bucket lets the next token be up to burst - 1 intervals ahead of now.
+            if (start - now > current.toleranceNanos) {
+                return false;
+            }
+            if (nextTokenNanos.compareAndSet(next, start + current.intervalNanos)) {
+                permitted.increment();
+                return true;
+            }
+        }
+    }
+
+    public void acquire() throws InterruptedException {
+        if (tryAcquire()) {
+            return;
+        }
+        // Reserving the slot before sleeping keeps blocked callers in arrival order without spinning.
+        Limits current = limits;
+        long now = System.nanoTime();
+        long next = nextTokenNanos.getAndAccumulate(now,
+                (previous, at) -> (previous - at > 0 ? previous : at) + current.intervalNanos);
+        long start = next - now > 0 ? next : now;
+        long waitNanos = start - now - current.toleranceNanos;
+        throttled.increment();
+        if (waitNanos > 0) {
+            throttledNanos.add(waitNanos);
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        permitted.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordShed() {
+        shed.increment();
+    }
+
+    public void setLimits(double sustainedPerSecond, int burst) {
+        Limits previous = limits;
+        Limits updated = Limits.of(sustainedPerSecond, burst);
+        this.limits = updated;
+        // Tokens already borrowed were priced at the old rate; repricing them makes the change apply from the next token.
+        double scale = (double) updated.intervalNanos / previous.intervalNanos;
+        nextTokenNanos.getAndUpdate(next -> {
+            long now = System.nanoTime();
+            return next - now > 0 ? now + (long) ((next - now) * scale) : next;
+        });
+    }
+
+    public void setMode(RateLimitMode mode) {
+        this.mode = mode;
+    }
+
+    public String getProducerName() {
+        return producerName;
+    }
+
+    public RateLimitMode getMode() {
+        return mode;
+    }
+
+    public double getSustainedPerSecond() {
+        return limits.sustainedPerSecond;
+    }
+
+    public int getBurst() {
+        return limits.burst;
+    }
+
+    public long getPermitted() {
+        return permitted.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+
+    private static final class Limits {
+        private final double sustainedPerSecond;
+        private final int burst;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        private Limits(double sustainedPerSecond, int burst) {
+            this.sustainedPerSecond = sustainedPerSecond;
+            this.burst = burst;
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / sustainedPerSecond));
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+        static Limits of(double sustainedPerSecond, int burst) {
+            if (!(sustainedPerSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid rate limit: %.2f per second, burst %d", sustainedPerSecond, burst));
+            }
+            return new Limits(sustainedPerSecond, burst);
+        }
+    }
+}
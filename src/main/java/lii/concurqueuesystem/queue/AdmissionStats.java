@@ -0,0 +1,64 @@
+package lii.concurqueuesystem.queue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdmissionStats {
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder droppedLowest = new LongAdder();
+    private final LongAdder droppedOldest = new LongAdder();
+
+    void recordAdmitted() {
+        admitted.increment();
+    }
+
+    void recordAdmitted(int count) {
+        admitted.add(count);
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordRejected(int count) {
+        rejected.add(count);
+    }
+
+    void recordTimedOut() {
+        timedOut.increment();
+    }
+
+    void recordTimedOut(int count) {
+        timedOut.add(count);
+    }
+
+    void recordDroppedLowest() {
+        droppedLowest.increment();
+    }
+
+    void recordDroppedOldest() {
+        droppedOldest.increment();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getDroppedLowest() {
+        return droppedLowest.sum();
+    }
+
+    public long getDroppedOldest() {
+        return droppedOldest.sum();
+    }
+}
@@ -0,0 +1,37 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public interface BulkTaskQueue {
+
+    // Admits what the queue's admission policy allows, waiting at most timeout for the whole batch, and returns
+    // the tasks it turned away in submission order. An interrupt ends the wait early and is left set on the thread.
+    List<Task> offerAll(List<Task> tasks, long timeout, TimeUnit unit);
+
+    static List<Task> offerAll(BlockingQueue<Task> queue, List<Task> tasks, long timeout, TimeUnit unit) {
+        if (queue instanceof BulkTaskQueue bulkQueue) {
+            return bulkQueue.offerAll(tasks, timeout, unit);
+        }
+
+        List<Task> rejected = new ArrayList<>();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!queue.offer(tasks.get(i), remaining, TimeUnit.NANOSECONDS)) {
+                    rejected.add(tasks.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.addAll(tasks.subList(i, tasks.size()));
+                break;
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,159 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DelayedRetryQueue extends AbstractQueue<Task> implements BlockingQueue<Task> {
+
+    private final DelayQueue<PendingRetry> pending;
+    private final RetryBackoff backoff;
+    private final AtomicLong sequence;
+    private volatile boolean expedited;
+
+    public DelayedRetryQueue(RetryBackoff backoff) {
+        this.pending = new DelayQueue<>();
+        this.backoff = Objects.requireNonNull(backoff);
+        this.sequence = new AtomicLong(0);
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        Objects.requireNonNull(task);
+        long delayNanos = expedited ? 0 : TimeUnit.MILLISECONDS.toNanos(backoff.delayMillis(task.getRetryCount()));
+        long dueAtNanos = System.nanoTime() + delayNanos;
+        // A retry that would only come due after its deadline is released at the deadline so it can be expired.
+        if (task.hasDeadline() && task.getDeadlineNanos() - dueAtNanos < 0) {
+            dueAtNanos = task.getDeadlineNanos();
+        }
+        return pending.offer(new PendingRetry(task, dueAtNanos, sequence.getAndIncrement()));
+    }
+
+    @Override
+    public boolean offer(Task task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public void put(Task task) {
+        offer(task);
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        return pending.take().task;
+    }
+
+    @Override
+    public Task poll() {
+        PendingRetry retry = pending.poll();
+        return retry == null ? null : retry.task;
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        PendingRetry retry = pending.poll(timeout, unit);
+        return retry == null ? null : retry.task;
+    }
+
+    @Override
+    public Task peek() {
+        PendingRetry retry = pending.peek();
+        return retry == null ? null : retry.task;
+    }
+
+    @Override
+    public int size() {
+        return pending.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target, int maxElements) {
+        Objects.requireNonNull(target);
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain queue into itself");
+        }
+        List<PendingRetry> due = new ArrayList<>();
+        int drained = pending.drainTo(due, maxElements);
+        for (PendingRetry retry : due) {
+            target.add(retry.task);
+        }
+        return drained;
+    }
+
+    // Makes every waiting retry due now, and skips the backoff for later ones, so a drain is not held up by delays.
+    public void expedite() {
+        expedited = true;
+        List<Task> waiting = new ArrayList<>();
+        drainAllTo(waiting);
+        waiting.forEach(this::offer);
+    }
+
+    public int drainAllTo(Collection<? super Task> target) {
+        // Unlike drainTo, this ignores the backoff and empties the queue, for shutdown snapshots.
+        int drained = 0;
+        for (PendingRetry retry : pending) {
+            if (pending.remove(retry)) {
+                target.add(retry.task);
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        List<Task> snapshot = new ArrayList<>();
+        for (PendingRetry retry : pending) {
+            snapshot.add(retry.task);
+        }
+        return snapshot.iterator();
+    }
+
+    private static final class PendingRetry implements Delayed {
+        private final Task task;
+        private final long dueAtNanos;
+        private final long sequence;
+
+        private PendingRetry(Task task, long dueAtNanos, long sequence) {
+            this.task = task;
+            this.dueAtNanos = dueAtNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            PendingRetry that = (PendingRetry) other;
+            int byDue = Long.compare(dueAtNanos - that.dueAtNanos, 0);
+            return byDue != 0 ? byDue : Long.compare(sequence, that.sequence);
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+import lombok.Getter;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class FairShareQueue extends AbstractQueue<Task> implements BlockingQueue<Task>, BulkTaskQueue {
+
+    private static final int LEVELS = Task.MAX_PRIORITY - Task.MIN_PRIORITY + 1;
+
+    // Producers name their tasks "<producer>-Task-<n>", so the name prefix identifies who submitted a task.
+    public static final Function<Task, String> BY_NAME_PREFIX = task -> {
+        String name = task.getName();
+        int dash = name.indexOf('-');
+        return dash > 0 ? name.substring(0, dash) : name;
+    };
+
+    private final Map<String, Flow> flows;
+    private final ArrayDeque<Flow> activeFlows;
+    private final Map<String, Integer> weights;
+    private final int defaultWeight;
+    private final Function<Task, String> tenantOf;
+
+    private final int capacity;
+    private final AdmissionPolicy admissionPolicy;
+    private final AdmissionStats admissionStats;
+    private volatile Consumer<Task> evictionListener = task -> { };
+
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private volatile int count;
+
+    public FairShareQueue() {
+        this(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, new AdmissionStats(), BY_NAME_PREFIX, Map.of(), 1);
+    }
+
+    public FairShareQueue(int capacity,
+                          AdmissionPolicy admissionPolicy,
+                          AdmissionStats admissionStats,
+                          Function<Task, String> tenantOf,
+                          Map<String, Integer> weights,
+                          int defaultWeight) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        if (defaultWeight < 1) {
+            throw new IllegalArgumentException("Tenant weight must be at least 1: " + defaultWeight);
+        }
+        this.flows = new HashMap<>();
+        this.activeFlows = new ArrayDeque<>();
+        this.weights = new HashMap<>();
+        weights.forEach(this::checkWeight);
+        this.weights.putAll(weights);
+        this.defaultWeight = defaultWeight;
+        this.tenantOf = Objects.requireNonNull(tenantOf);
+        this.capacity = capacity;
+        this.admissionPolicy = Objects.requireNonNull(admissionPolicy);
+        this.admissionStats = Objects.requireNonNull(admissionStats);
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    public void setEvictionListener(Consumer<Task> evictionListener) {
+        this.evictionListener = Objects.requireNonNull(evictionListener);
+    }
+
+    // Applies from the tenant's next round; a turn already in progress finishes with the old weight.
+    public void setWeight(String tenant, int weight) {
+        checkWeight(tenant, weight);
+        lock.lock();
+        try {
+            weights.put(tenant, weight);
+            Flow flow = flows.get(tenant);
+            if (flow != null) {
+                flow.weight = weight;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        Objects.requireNonNull(task);
+        Task evicted;
+        lock.lock();
+        try {
+            if (count < capacity) {
+                enqueue(task);
+                return true;
+            }
+            evicted = evictFor(task);
+            if (evicted == null) {
+                return false;
+            }
+            enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+        evictionListener.accept(evicted);
+        return true;
+    }
+
+    @Override
+    public boolean offer(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(task);
+        if (admissionPolicy != AdmissionPolicy.BLOCK || capacity == Integer.MAX_VALUE) {
+            return offer(task);
+        }
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0) {
+                    admissionStats.recordTimedOut();
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Task task) throws InterruptedException {
+        Objects.requireNonNull(task);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> offerAll(List<Task> tasks, long timeout, TimeUnit unit) {
+        tasks.forEach(Objects::requireNonNull);
+        int total = tasks.size();
+        int next = 0;
+        List<Task> rejected = new ArrayList<>();
+        List<Task> evicted = new ArrayList<>();
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (true) {
+                int admitted = 0;
+                for (; next < total && count < capacity; next++) {
+                    link(tasks.get(next));
+                    admitted++;
+                }
+                if (next < total && admissionPolicy != AdmissionPolicy.BLOCK) {
+                    admitted += overflow(tasks.subList(next, total), rejected, evicted);
+                    next = total;
+                }
+                admitted(admitted);
+                if (next == total) {
+                    break;
+                }
+                if (nanos <= 0) {
+                    admissionStats.recordTimedOut(total - next);
+                    rejected.addAll(tasks.subList(next, total));
+                    break;
+                }
+                try {
+                    nanos = notFull.awaitNanos(nanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    nanos = 0;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        evicted.forEach(evictionListener);
+        return rejected;
+    }
+
+    @Override
+    public Task poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task peek() {
+        lock.lock();
+        try {
+            Flow flow = activeFlows.peekFirst();
+            return flow == null ? null : flow.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        if (capacity == Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, capacity - count);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target, int maxElements) {
+        Objects.requireNonNull(target);
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain queue into itself");
+        }
+
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && count > 0) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Task task)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Flow flow = flows.get(tenantOf.apply(task));
+            if (flow == null || !flow.remove(task)) {
+                return false;
+            }
+            removed(flow);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        List<Task> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Flow flow : activeFlows) {
+                flow.addTo(snapshot);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return snapshot.iterator();
+    }
+
+    public List<TenantShare> getTenantShares() {
+        List<TenantShare> shares = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Flow flow : flows.values()) {
+                shares.add(new TenantShare(flow.tenant, flow.weight, flow.size, flow.dequeued));
+            }
+        } finally {
+            lock.unlock();
+        }
+        shares.sort((a, b) -> a.getTenant().compareTo(b.getTenant()));
+        return shares;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public AdmissionStats getAdmissionStats() {
+        return admissionStats;
+    }
+
+    private void enqueue(Task task) {
+        link(task);
+        admissionStats.recordAdmitted();
+        notEmpty.signal();
+    }
+
+    private void link(Task task) {
+        String tenant = tenantOf.apply(task);
+        Flow flow = flows.computeIfAbsent(tenant, t -> new Flow(t, weights.getOrDefault(t, defaultWeight)));
+        flow.add(task);
+        if (!flow.active) {
+            flow.active = true;
+            activeFlows.addLast(flow);
+        }
+        count++;
+    }
+
+    // Stops signalling once no consumer is left waiting, so a large batch costs at most one wake-up per worker.
+    private void admitted(int admitted) {
+        if (admitted == 0) {
+            return;
+        }
+        admissionStats.recordAdmitted(admitted);
+        for (int i = 0; i < admitted && lock.hasWaiters(notEmpty); i++) {
+            notEmpty.signal();
+        }
+    }
+
+    // The queue is full and stays full under the lock, so each task either replaces a victim or is turned away.
+    private int overflow(List<Task> tasks, List<Task> rejected, List<Task> evicted) {
+        if (admissionPolicy == AdmissionPolicy.REJECT) {
+            admissionStats.recordRejected(tasks.size());
+            rejected.addAll(tasks);
+            return 0;
+        }
+        int admitted = 0;
+        for (Task task : tasks) {
+            Task victim = evictFor(task);
+            if (victim == null) {
+                rejected.add(task);
+                continue;
+            }
+            evicted.add(victim);
+            link(task);
+            admitted++;
+        }
+        return admitted;
+    }
+
+    // Deficit round robin with a cost of one per task: the head flow gets weight tasks per turn, then goes to the back.
+    private Task dequeue() {
+        Flow flow = activeFlows.peekFirst();
+        if (flow.deficit == 0) {
+            flow.deficit = flow.weight;
+        }
+        Task task = flow.poll();
+        flow.deficit--;
+        flow.dequeued++;
+        if (flow.size == 0) {
+            retire(flow);
+        } else if (flow.deficit == 0) {
+            activeFlows.pollFirst();
+            activeFlows.addLast(flow);
+        }
+        count--;
+        notFull.signal();
+        return task;
+    }
+
+    private void removed(Flow flow) {
+        if (flow.size == 0) {
+            activeFlows.remove(flow);
+            flow.active = false;
+            flow.deficit = 0;
+        }
+        count--;
+        notFull.signal();
+    }
+
+    private void retire(Flow flow) {
+        // An idle tenant keeps no credit, so it cannot save up turns and burst past the others later.
+        activeFlows.pollFirst();
+        flow.active = false;
+        flow.deficit = 0;
+    }
+
+    private Task evictFor(Task task) {
+        if (admissionPolicy == AdmissionPolicy.BLOCK || admissionPolicy == AdmissionPolicy.REJECT) {
+            admissionStats.recordRejected();
+            return null;
+        }
+        // The victim comes from whichever tenant holds the most of the queue, so one flood cannot push out the others.
+        Flow longest = null;
+        for (Flow flow : activeFlows) {
+            if (longest == null || flow.size > longest.size) {
+                longest = flow;
+            }
+        }
+        if (longest == null) {
+            admissionStats.recordRejected();
+            return null;
+        }
+
+        Task victim;
+        if (admissionPolicy == AdmissionPolicy.DROP_LOWEST_PRIORITY) {
+            int lowest = Integer.numberOfTrailingZeros(longest.nonEmptyMask);
+            if (longest.tenant.equals(tenantOf.apply(task)) && levelOf(task) <= lowest) {
+                admissionStats.recordDroppedLowest();
+                return null;
+            }
+            victim = longest.pollLevel(lowest);
+            admissionStats.recordDroppedLowest();
+        } else {
+            victim = longest.pollLevel(longest.oldestHeadLevel());
+            admissionStats.recordDroppedOldest();
+        }
+        removed(longest);
+        return victim;
+    }
+
+    private void checkWeight(String tenant, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException(String.format("Weight for tenant %s must be at least 1: %d",
+                    tenant, weight));
+        }
+    }
+
+    private static int levelOf(Task task) {
+        int clamped = Math.max(Task.MIN_PRIORITY, Math.min(Task.MAX_PRIORITY, task.getPriority()));
+        return clamped - Task.MIN_PRIORITY;
+    }
+
+    @Getter
+    public static final class TenantShare {
+        private final String tenant;
+        private final int weight;
+        private final int queued;
+        private final long dequeued;
+
+        private TenantShare(String tenant, int weight, int queued, long dequeued) {
+            this.tenant = tenant;
+            this.weight = weight;
+            this.queued = queued;
+            this.dequeued = dequeued;
+        }
+    }
+
+    // Guarded by the queue lock; each tenant keeps its own FIFO per priority level.
+    private static final class Flow {
+        private final String tenant;
+        private final ArrayDeque<Task>[] levels;
+        private int nonEmptyMask;
+        private int size;
+        private int weight;
+        private int deficit;
+        private boolean active;
+        private long dequeued;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Flow(String tenant, int weight) {
+            this.tenant = tenant;
+            this.weight = weight;
+            this.levels = new ArrayDeque[LEVELS];
+        }
+
+        void add(Task task) {
+            int level = levelOf(task);
+            if (levels[level] == null) {
+                levels[level] = new ArrayDeque<>();
+            }
+            levels[level].addLast(task);
+            nonEmptyMask |= 1 << level;
+            size++;
+        }
+
+        Task peek() {
+            return nonEmptyMask == 0 ? null : levels[31 - Integer.numberOfLeadingZeros(nonEmptyMask)].peekFirst();
+        }
+
+        Task poll() {
+            return pollLevel(31 - Integer.numberOfLeadingZeros(nonEmptyMask));
+        }
+
+        Task pollLevel(int level) {
+            Task task = levels[level].pollFirst();
+            if (levels[level].isEmpty()) {
+                nonEmptyMask &= ~(1 << level);
+            }
+            size--;
+            return task;
+        }
+
+        boolean remove(Task task) {
+            int level = levelOf(task);
+            if (levels[level] == null || !levels[level].remove(task)) {
+                return false;
+            }
+            if (levels[level].isEmpty()) {
+                nonEmptyMask &= ~(1 << level);
+            }
+            size--;
+            return true;
+        }
+
+        int oldestHeadLevel() {
+            int oldestLevel = -1;
+            Task oldest = null;
+            for (int mask = nonEmptyMask; mask != 0; mask &= mask - 1) {
+                int level = Integer.numberOfTrailingZeros(mask);
+                Task head = levels[level].peekFirst();
+                if (oldest == null || head.getCreatedNanos() - oldest.getCreatedNanos() < 0) {
+                    oldest = head;
+                    oldestLevel = level;
+                }
+            }
+            return oldestLevel;
+        }
+
+        void addTo(List<Task> target) {
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                if (levels[level] != null) {
+                    target.addAll(levels[level]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package lii.concurqueuesystem.queue;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class IdempotencyCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final long windowNanos;
+    private final int maxKeys;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    public IdempotencyCache(long windowMillis, int maxKeys) {
+        if (windowMillis <= 0 || maxKeys < SEGMENT_COUNT) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid deduplication window: %d ms, %d keys (minimum %d)", windowMillis, maxKeys, SEGMENT_COUNT));
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxKeys = maxKeys;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(maxKeys / SEGMENT_COUNT);
+        }
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    // Returns the task already holding the key within the window, or null after recording taskId as its holder.
+    public UUID putIfAbsent(String key, UUID taskId) {
+        long now = System.nanoTime();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry existing = segment.get(key);
+            if (existing != null && now - existing.recordedNanos < windowNanos) {
+                hits.increment();
+                return existing.taskId;
+            }
+            segment.put(key, new Entry(taskId, now));
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Lets a submission that never made it into the queue be retried under the same key.
+    public void release(String key, UUID taskId) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry existing = segment.get(key);
+            if (existing != null && existing.taskId.equals(taskId)) {
+                segment.remove(key);
+            }
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    }
+
+    private static final class Entry {
+        private final UUID taskId;
+        private final long recordedNanos;
+
+        private Entry(UUID taskId, long recordedNanos) {
+            this.taskId = taskId;
+            this.recordedNanos = recordedNanos;
+        }
+    }
+
+    // Guarded by its own monitor; the map stays private so nothing can change it without holding that lock.
+    private final class Segment {
+        // Access order, so a key that keeps being resubmitted stays resident while one-off keys age out first.
+        private final LinkedHashMap<String, Entry> entries;
+        private final int capacity;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        private Entry get(String key) {
+            return entries.get(key);
+        }
+
+        private void put(String key, Entry entry) {
+            entries.put(key, entry);
+            Iterator<Entry> eldest = entries.values().iterator();
+            Entry oldest = eldest.next();
+            if (entries.size() > capacity) {
+                eldest.remove();
+                evictions.increment();
+            } else if (System.nanoTime() - oldest.recordedNanos >= windowNanos) {
+                // Outside the window the key no longer suppresses anything, so it can go without counting as an eviction.
+                eldest.remove();
+            }
+        }
+
+        private void remove(String key) {
+            entries.remove(key);
+        }
+
+        private int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.codec.BinaryTaskCodec;
+import lii.concurqueuesystem.codec.DirectBufferPool;
+import lii.concurqueuesystem.codec.TaskCodec;
+import lii.concurqueuesystem.model.Task;
+import lombok.Getter;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OffHeapPayloadQueue extends AbstractQueue<Task> implements BlockingQueue<Task>, BulkTaskQueue {
+
+    private final BlockingQueue<Task> delegate;
+    @Getter
+    private final DirectBufferPool pool;
+    private final TaskCodec codec;
+    private final LongAdder onHeapFallbacks;
+
+    public OffHeapPayloadQueue(BlockingQueue<Task> delegate, DirectBufferPool pool) {
+        this(delegate, pool, new BinaryTaskCodec());
+    }
+
+    public OffHeapPayloadQueue(BlockingQueue<Task> delegate, DirectBufferPool pool, TaskCodec codec) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.pool = Objects.requireNonNull(pool);
+        this.codec = Objects.requireNonNull(codec);
+        this.onHeapFallbacks = new LongAdder();
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        Task stored = moveOffHeap(task);
+        if (delegate.offer(stored)) {
+            return true;
+        }
+        release(stored);
+        return false;
+    }
+
+    @Override
+    public boolean offer(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        Task stored = moveOffHeap(task);
+        boolean accepted = false;
+        try {
+            accepted = delegate.offer(stored, timeout, unit);
+            return accepted;
+        } finally {
+            if (!accepted) {
+                release(stored);
+            }
+        }
+    }
+
+    @Override
+    public void put(Task task) throws InterruptedException {
+        Task stored = moveOffHeap(task);
+        boolean accepted = false;
+        try {
+            delegate.put(stored);
+            accepted = true;
+        } finally {
+            if (!accepted) {
+                release(stored);
+            }
+        }
+    }
+
+    // Rejections come back in submission order, so one pass maps them to the caller's own task objects.
+    @Override
+    public List<Task> offerAll(List<Task> tasks, long timeout, TimeUnit unit) {
+        List<Task> stored = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            stored.add(moveOffHeap(task));
+        }
+        List<Task> turnedAway = BulkTaskQueue.offerAll(delegate, stored, timeout, unit);
+        if (turnedAway.isEmpty()) {
+            return turnedAway;
+        }
+        List<Task> rejected = new ArrayList<>(turnedAway.size());
+        int next = 0;
+        for (int i = 0; i < stored.size() && next < turnedAway.size(); i++) {
+            if (stored.get(i) == turnedAway.get(next)) {
+                release(stored.get(i));
+                rejected.add(tasks.get(i));
+                next++;
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public Task poll() {
+        return materialize(delegate.poll());
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        return materialize(delegate.take());
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return materialize(delegate.poll(timeout, unit));
+    }
+
+    @Override
+    public Task peek() {
+        while (true) {
+            Task head = delegate.peek();
+            try {
+                return decoded(head);
+            } catch (IllegalStateException e) {
+                // A consumer took the head while it was being read; look again.
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target, int maxElements) {
+        Objects.requireNonNull(target);
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain queue into itself");
+        }
+        List<Task> stored = new ArrayList<>();
+        int drained = delegate.drainTo(stored, maxElements);
+        for (Task task : stored) {
+            target.add(materialize(task));
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        // Callers hold the decoded task, so find the stored handle by id before releasing it.
+        for (Task stored : delegate) {
+            if (stored.equals(o) && delegate.remove(stored)) {
+                release(stored);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        List<Task> snapshot = new ArrayList<>();
+        for (Task stored : delegate) {
+            try {
+                snapshot.add(decoded(stored));
+            } catch (IllegalStateException e) {
+                // Dequeued while the snapshot was being taken.
+            }
+        }
+        return snapshot.iterator();
+    }
+
+    public long getOnHeapFallbacks() {
+        return onHeapFallbacks.sum();
+    }
+
+    public static void release(Task task) {
+        if (task instanceof OffHeapTask offHeapTask) {
+            offHeapTask.release();
+        }
+    }
+
+    private Task moveOffHeap(Task task) {
+        Objects.requireNonNull(task);
+        // The codec writes a null payload as an empty one, so those tasks stay as they are.
+        if (task instanceof OffHeapTask || task.getPayload() == null) {
+            return task;
+        }
+        int length = codec.encodedSize(task);
+        long slot = pool.reserve(length);
+        if (slot == DirectBufferPool.NO_SLOT) {
+            onHeapFallbacks.increment();
+            return task;
+        }
+        try {
+            codec.encode(task, pool.view(slot, length));
+        } catch (IllegalArgumentException e) {
+            pool.release(slot, length);
+            onHeapFallbacks.increment();
+            return task;
+        }
+        return new OffHeapTask(task, pool, codec, slot, length);
+    }
+
+    private static Task materialize(Task task) {
+        return task instanceof OffHeapTask offHeapTask ? offHeapTask.materialize() : task;
+    }
+
+    private static Task decoded(Task task) {
+        return task instanceof OffHeapTask offHeapTask ? offHeapTask.decode() : task;
+    }
+}
@@ -0,0 +1,132 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.codec.DirectBufferPool;
+import lii.concurqueuesystem.codec.TaskCodec;
+import lii.concurqueuesystem.model.Task;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+// A queued task whose encoded form lives in a pool slot. The heap keeps only what queues order, age and expire by,
+// plus the id as two longs so equality never touches the slot; the rest is decoded from the slot on demand, which
+// is why its getters are written out rather than generated.
+public class OffHeapTask extends Task {
+
+    private static final AtomicLongFieldUpdater<OffHeapTask> SLOT =
+            AtomicLongFieldUpdater.newUpdater(OffHeapTask.class, "slot");
+
+    private final DirectBufferPool pool;
+    private final TaskCodec codec;
+    private final long idHigh;
+    private final long idLow;
+    private final int length;
+    private final boolean withDeadline;
+    private final boolean withIdempotencyKey;
+    private volatile long slot;
+
+    OffHeapTask(Task task, DirectBufferPool pool, TaskCodec codec, long slot, int length) {
+        super(task.getPriority(), task.getRetryCount(), task.getCreatedNanos(), task.getEnqueuedNanos(),
+                task.getDeadlineNanos());
+        this.pool = pool;
+        this.codec = codec;
+        this.idHigh = task.getId().getMostSignificantBits();
+        this.idLow = task.getId().getLeastSignificantBits();
+        this.length = length;
+        this.withDeadline = task.hasDeadline();
+        this.withIdempotencyKey = task.hasIdempotencyKey();
+        this.slot = slot;
+    }
+
+    @Override
+    public UUID getId() {
+        return new UUID(idHigh, idLow);
+    }
+
+    @Override
+    public String getName() {
+        return read(codec::decodeName);
+    }
+
+    @Override
+    public Instant getCreatedTimestamp() {
+        return read(codec::decode).getCreatedTimestamp();
+    }
+
+    @Override
+    public String getPayload() {
+        return read(codec::decode).getPayload();
+    }
+
+    @Override
+    public Instant getDeadline() {
+        return withDeadline ? read(codec::decode).getDeadline() : null;
+    }
+
+    @Override
+    public String getIdempotencyKey() {
+        return withIdempotencyKey ? read(codec::decode).getIdempotencyKey() : null;
+    }
+
+    @Override
+    public boolean hasDeadline() {
+        return withDeadline;
+    }
+
+    @Override
+    public boolean hasIdempotencyKey() {
+        return withIdempotencyKey;
+    }
+
+    // An on-heap copy for callers that look at a task still in the queue; the slot stays with this task.
+    public Task decode() {
+        return restore(read(codec::decode));
+    }
+
+    public Task materialize() {
+        long current = SLOT.getAndSet(this, DirectBufferPool.NO_SLOT);
+        if (current == DirectBufferPool.NO_SLOT) {
+            throw new IllegalStateException("Off-heap task already released: " + getId());
+        }
+        try {
+            return restore(codec.decode(pool.view(current, length)));
+        } finally {
+            pool.release(current, length);
+        }
+    }
+
+    public void release() {
+        long current = SLOT.getAndSet(this, DirectBufferPool.NO_SLOT);
+        if (current != DirectBufferPool.NO_SLOT) {
+            pool.release(current, length);
+        }
+    }
+
+    private Task restore(Task decoded) {
+        return new Task(decoded, getCreatedNanos(), getEnqueuedNanos(), getDeadlineNanos());
+    }
+
+    // Monitors read queued tasks while a consumer may release the slot and another task reuse it. As with a
+    // StampedLock optimistic read, the result only counts if the slot still belonged to this task afterwards.
+    private <T> T read(Function<ByteBuffer, T> reader) {
+        long current = slot;
+        if (current != DirectBufferPool.NO_SLOT) {
+            try {
+                T value = reader.apply(pool.view(current, length));
+                VarHandle.acquireFence();
+                if (slot == current) {
+                    return value;
+                }
+            } catch (IllegalArgumentException e) {
+                VarHandle.acquireFence();
+                if (slot == current) {
+                    throw e;
+                }
+            }
+        }
+        throw new IllegalStateException("Off-heap task already released: " + getId());
+    }
+}
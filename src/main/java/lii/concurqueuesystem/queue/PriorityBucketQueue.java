@@ -0,0 +1,607 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+public class PriorityBucketQueue extends AbstractQueue<Task> implements BlockingQueue<Task>, BulkTaskQueue {
+
+    private static final int LEVELS = Task.MAX_PRIORITY - Task.MIN_PRIORITY + 1;
+    private static final int MAX_EVICTION_ATTEMPTS = 64;
+
+    private final ConcurrentLinkedQueue<Task>[] buckets;
+    private final AtomicInteger nonEmptyMask;
+    private final AtomicInteger count;
+    private final AtomicInteger waitingConsumers;
+    private final AtomicInteger waitingProducers;
+
+    private final int capacity;
+    private final AdmissionPolicy admissionPolicy;
+    private final AdmissionStats admissionStats;
+    private volatile Consumer<Task> evictionListener = task -> { };
+
+    private final long agingIntervalNanos;
+    private final int agingCeilingLevel;
+    private final AtomicLong nextAgingEpochNanos;
+    private final LongAdder promotions;
+
+    private final ReentrantLock waitLock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    public PriorityBucketQueue() {
+        this(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, new AdmissionStats());
+    }
+
+    public PriorityBucketQueue(int capacity, AdmissionPolicy admissionPolicy, AdmissionStats admissionStats) {
+        this(capacity, admissionPolicy, admissionStats, 0, Task.MAX_PRIORITY);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PriorityBucketQueue(int capacity, AdmissionPolicy admissionPolicy, AdmissionStats admissionStats,
+                               long agingIntervalMillis, int agingCeilingPriority) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        if (agingIntervalMillis < 0) {
+            throw new IllegalArgumentException("Aging interval must not be negative: " + agingIntervalMillis);
+        }
+        if (agingCeilingPriority < Task.MIN_PRIORITY || agingCeilingPriority > Task.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Aging ceiling must be a valid priority: " + agingCeilingPriority);
+        }
+        this.buckets = new ConcurrentLinkedQueue[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nonEmptyMask = new AtomicInteger(0);
+        this.count = new AtomicInteger(0);
+        this.waitingConsumers = new AtomicInteger(0);
+        this.waitingProducers = new AtomicInteger(0);
+        this.capacity = capacity;
+        this.admissionPolicy = Objects.requireNonNull(admissionPolicy);
+        this.admissionStats = Objects.requireNonNull(admissionStats);
+        this.waitLock = new ReentrantLock();
+        this.notEmpty = waitLock.newCondition();
+        this.notFull = waitLock.newCondition();
+        this.agingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(agingIntervalMillis);
+        this.agingCeilingLevel = levelOf(agingCeilingPriority);
+        this.nextAgingEpochNanos = new AtomicLong(System.nanoTime() + agingIntervalNanos);
+        this.promotions = new LongAdder();
+    }
+
+    public void setEvictionListener(Consumer<Task> evictionListener) {
+        this.evictionListener = Objects.requireNonNull(evictionListener);
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        Objects.requireNonNull(task);
+        for (int attempt = 0; ; attempt++) {
+            if (tryReserve()) {
+                enqueue(task);
+                return true;
+            }
+
+            switch (admissionPolicy) {
+                case BLOCK, REJECT -> {
+                    admissionStats.recordRejected();
+                    return false;
+                }
+                case DROP_LOWEST_PRIORITY -> {
+                    int lowest = lowestNonEmptyLevel();
+                    if (lowest >= 0 && levelOf(task) <= lowest) {
+                        admissionStats.recordDroppedLowest();
+                        return false;
+                    }
+                    if (lowest >= 0 && replace(lowest, task)) {
+                        admissionStats.recordDroppedLowest();
+                        return true;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    int oldest = oldestHeadLevel();
+                    if (oldest >= 0 && replace(oldest, task)) {
+                        admissionStats.recordDroppedOldest();
+                        return true;
+                    }
+                }
+            }
+
+            // Full, but every slot is reserved by an offer that has not linked its task yet, so there is no victim.
+            if (attempt >= MAX_EVICTION_ATTEMPTS) {
+                admissionStats.recordRejected();
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public boolean offer(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(task);
+        if (admissionPolicy != AdmissionPolicy.BLOCK || capacity == Integer.MAX_VALUE) {
+            return offer(task);
+        }
+        if (tryReserve()) {
+            enqueue(task);
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            while (!tryReserve()) {
+                if (nanos <= 0) {
+                    admissionStats.recordTimedOut();
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            notFull.signal();
+            throw e;
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+        enqueue(task);
+        return true;
+    }
+
+    @Override
+    public void put(Task task) throws InterruptedException {
+        Objects.requireNonNull(task);
+        if (tryReserve()) {
+            enqueue(task);
+            return;
+        }
+
+        waitLock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            while (!tryReserve()) {
+                notFull.await();
+            }
+        } catch (InterruptedException e) {
+            notFull.signal();
+            throw e;
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+        enqueue(task);
+    }
+
+    @Override
+    public List<Task> offerAll(List<Task> tasks, long timeout, TimeUnit unit) {
+        tasks.forEach(Objects::requireNonNull);
+        int total = tasks.size();
+        int next = enqueueAll(tasks, 0, tryReserve(total));
+        if (next == total) {
+            return List.of();
+        }
+
+        List<Task> rejected = new ArrayList<>();
+        if (admissionPolicy == AdmissionPolicy.REJECT
+                || (admissionPolicy == AdmissionPolicy.BLOCK && capacity == Integer.MAX_VALUE)) {
+            admissionStats.recordRejected(total - next);
+            rejected.addAll(tasks.subList(next, total));
+            return rejected;
+        }
+        if (admissionPolicy != AdmissionPolicy.BLOCK) {
+            // Eviction picks a victim per incoming task, so the overflow goes through the single-task path.
+            for (Task task : tasks.subList(next, total)) {
+                if (!offer(task)) {
+                    rejected.add(task);
+                }
+            }
+            return rejected;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        waitLock.lock();
+        waitingProducers.incrementAndGet();
+        try {
+            while (next < total) {
+                int reserved = tryReserve(total - next);
+                if (reserved > 0) {
+                    next = enqueueAll(tasks, next, reserved);
+                } else if (nanos <= 0) {
+                    break;
+                } else {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            notFull.signal();
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+        if (next < total) {
+            admissionStats.recordTimedOut(total - next);
+            rejected.addAll(tasks.subList(next, total));
+        }
+        return rejected;
+    }
+
+    @Override
+    public Task poll() {
+        if (agingIntervalNanos > 0) {
+            maybeAge();
+        }
+        int mask = nonEmptyMask.get();
+        while (mask != 0) {
+            int level = 31 - Integer.numberOfLeadingZeros(mask);
+            Task task = buckets[level].poll();
+            if (task != null) {
+                count.decrementAndGet();
+                signalNotFull();
+                return task;
+            }
+            clearIfEmpty(level);
+            mask &= ~(1 << level);
+        }
+        return null;
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        Task task = poll();
+        if (task != null) {
+            return task;
+        }
+
+        waitLock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while ((task = poll()) == null) {
+                notEmpty.await();
+            }
+        } catch (InterruptedException e) {
+            notEmpty.signal();
+            throw e;
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+        return task;
+    }
+
+    @Override
+    public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Task task = poll();
+        if (task != null) {
+            return task;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while ((task = poll()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            notEmpty.signal();
+            throw e;
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+        return task;
+    }
+
+    @Override
+    public Task peek() {
+        int mask = nonEmptyMask.get();
+        while (mask != 0) {
+            int level = 31 - Integer.numberOfLeadingZeros(mask);
+            Task task = buckets[level].peek();
+            if (task != null) {
+                return task;
+            }
+            mask &= ~(1 << level);
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, count.get());
+    }
+
+    @Override
+    public int remainingCapacity() {
+        if (capacity == Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, capacity - count.get());
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Task> target, int maxElements) {
+        Objects.requireNonNull(target);
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain queue into itself");
+        }
+
+        int drained = 0;
+        Task task;
+        while (drained < maxElements && (task = poll()) != null) {
+            target.add(task);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Task task)) {
+            return false;
+        }
+        // Aging may have moved the task up to the ceiling, but never below its own priority.
+        int top = agingIntervalNanos > 0 ? Math.max(levelOf(task), agingCeilingLevel) : levelOf(task);
+        for (int level = levelOf(task); level <= top; level++) {
+            if (buckets[level].remove(task)) {
+                count.decrementAndGet();
+                signalNotFull();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        List<Task> snapshot = new ArrayList<>();
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            snapshot.addAll(buckets[level]);
+        }
+        return snapshot.iterator();
+    }
+
+    public int sizeAt(int priority) {
+        return buckets[levelOf(priority)].size();
+    }
+
+    public long getPromotions() {
+        return promotions.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public AdmissionStats getAdmissionStats() {
+        return admissionStats;
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = count.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Claims up to wanted slots with one CAS so a batch pays for the count once.
+    private int tryReserve(int wanted) {
+        while (true) {
+            int current = count.get();
+            int granted = Math.min(wanted, capacity - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (count.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    private int enqueueAll(List<Task> tasks, int from, int reserved) {
+        if (reserved == 0) {
+            return from;
+        }
+        int levels = 0;
+        int end = from + reserved;
+        for (int i = from; i < end; i++) {
+            Task task = tasks.get(i);
+            int level = levelOf(task);
+            buckets[level].offer(task);
+            levels |= 1 << level;
+        }
+        int added = levels;
+        if ((nonEmptyMask.get() & added) != added) {
+            nonEmptyMask.getAndUpdate(mask -> mask | added);
+        }
+        admissionStats.recordAdmitted(reserved);
+        signalNotEmpty(reserved);
+        return end;
+    }
+
+    private void enqueue(Task task) {
+        int level = levelOf(task);
+        buckets[level].offer(task);
+        markNonEmpty(level);
+        admissionStats.recordAdmitted();
+        signalNotEmpty();
+    }
+
+    private void maybeAge() {
+        long now = System.nanoTime();
+        long due = nextAgingEpochNanos.get();
+        // One poller per epoch does the promotion; everyone else pays a single clock read.
+        if (now - due < 0 || !nextAgingEpochNanos.compareAndSet(due, now + agingIntervalNanos)) {
+            return;
+        }
+        if (promoteAged(now) > 0) {
+            signalNotEmpty();
+        }
+    }
+
+    int promoteAged(long now) {
+        int promoted = 0;
+        // Top-down, so a task moves at most once per epoch, straight to the level its wait has earned.
+        for (int level = agingCeilingLevel - 1; level >= 0; level--) {
+            ConcurrentLinkedQueue<Task> bucket = buckets[level];
+            Task head;
+            // Buckets are FIFO, so the first head that has not aged enough ends the scan of that level.
+            while ((head = bucket.peek()) != null) {
+                int target = agedLevel(head, now);
+                if (target <= level) {
+                    break;
+                }
+                if (!bucket.remove(head)) {
+                    continue;
+                }
+                buckets[target].offer(head);
+                markNonEmpty(target);
+                promoted++;
+            }
+            if (bucket.isEmpty()) {
+                clearIfEmpty(level);
+            }
+        }
+        if (promoted > 0) {
+            promotions.add(promoted);
+        }
+        return promoted;
+    }
+
+    private int agedLevel(Task task, long now) {
+        long waited = Math.max(0, now - task.getEnqueuedNanos());
+        long boost = waited / agingIntervalNanos;
+        return (int) Math.min(agingCeilingLevel, levelOf(task) + boost);
+    }
+
+    private boolean replace(int victimLevel, Task task) {
+        // The victim's slot is handed straight to the incoming task, so count is unchanged.
+        Task victim = buckets[victimLevel].poll();
+        if (victim == null) {
+            clearIfEmpty(victimLevel);
+            return false;
+        }
+        enqueue(task);
+        evictionListener.accept(victim);
+        return true;
+    }
+
+    private int lowestNonEmptyLevel() {
+        int mask = nonEmptyMask.get();
+        return mask == 0 ? -1 : Integer.numberOfTrailingZeros(mask);
+    }
+
+    private int oldestHeadLevel() {
+        int oldestLevel = -1;
+        Task oldest = null;
+        int mask = nonEmptyMask.get();
+        while (mask != 0) {
+            int level = Integer.numberOfTrailingZeros(mask);
+            Task head = buckets[level].peek();
+            if (head != null && (oldest == null || head.getCreatedNanos() - oldest.getCreatedNanos() < 0)) {
+                oldest = head;
+                oldestLevel = level;
+            }
+            mask &= mask - 1;
+        }
+        return oldestLevel;
+    }
+
+    private void markNonEmpty(int level) {
+        int bit = 1 << level;
+        if ((nonEmptyMask.get() & bit) == 0) {
+            nonEmptyMask.getAndUpdate(mask -> mask | bit);
+        }
+    }
+
+    private void clearIfEmpty(int level) {
+        int bit = 1 << level;
+        nonEmptyMask.getAndUpdate(mask -> mask & ~bit);
+        // An offer may have landed between the failed poll and the clear above.
+        if (!buckets[level].isEmpty()) {
+            markNonEmpty(level);
+        }
+    }
+
+    private void signalNotEmpty() {
+        if (waitingConsumers.get() == 0) {
+            return;
+        }
+        waitLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    // One lock acquisition wakes a consumer per admitted task, or every waiting consumer if there are fewer.
+    private void signalNotEmpty(int admitted) {
+        if (waitingConsumers.get() == 0) {
+            return;
+        }
+        waitLock.lock();
+        try {
+            for (int i = Math.min(admitted, waitingConsumers.get()); i > 0; i--) {
+                notEmpty.signal();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    private void signalNotFull() {
+        if (waitingProducers.get() == 0) {
+            return;
+        }
+        waitLock.lock();
+        try {
+            notFull.signal();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    private static int levelOf(Task task) {
+        return levelOf(task.getPriority());
+    }
+
+    private static int levelOf(int priority) {
+        int clamped = Math.max(Task.MIN_PRIORITY, Math.min(Task.MAX_PRIORITY, priority));
+        return clamped - Task.MIN_PRIORITY;
+    }
+}
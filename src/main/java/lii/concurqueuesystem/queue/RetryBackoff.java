@@ -0,0 +1,38 @@
+package lii.concurqueuesystem.queue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RetryBackoff {
+
+    private final long baseDelayMillis;
+    private final double multiplier;
+    private final long maxDelayMillis;
+    private final double jitterRatio;
+
+    public RetryBackoff(long baseDelayMillis, double multiplier, long maxDelayMillis, double jitterRatio) {
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid retry delays: base=%d ms, max=%d ms", baseDelayMillis, maxDelayMillis));
+        }
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("Retry multiplier must be >= 1.0: " + multiplier);
+        }
+        if (jitterRatio < 0.0 || jitterRatio > 1.0) {
+            throw new IllegalArgumentException("Retry jitter must be between 0.0 and 1.0: " + jitterRatio);
+        }
+        this.baseDelayMillis = baseDelayMillis;
+        this.multiplier = multiplier;
+        this.maxDelayMillis = maxDelayMillis;
+        this.jitterRatio = jitterRatio;
+    }
+
+    public long delayMillis(int attempt) {
+        double delay = baseDelayMillis * Math.pow(multiplier, Math.max(0, attempt - 1));
+        long capped = (long) Math.min(delay, maxDelayMillis);
+        if (jitterRatio == 0.0 || capped == 0) {
+            return capped;
+        }
+        long spread = (long) (capped * jitterRatio);
+        return Math.max(0, capped - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1));
+    }
+}
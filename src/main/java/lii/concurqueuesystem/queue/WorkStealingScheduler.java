@@ -0,0 +1,236 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class WorkStealingScheduler {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final BlockingQueue<Task> globalQueue;
+    private final ConcurrentLinkedDeque<Task>[] localDeques;
+    private final int refillBatchSize;
+    private final int globalCheckInterval;
+
+    private final LongAdder localHits;
+    private final LongAdder globalFetches;
+    private final LongAdder steals;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public WorkStealingScheduler(BlockingQueue<Task> globalQueue, int workerCount,
+                                 int refillBatchSize, int globalCheckInterval) {
+        if (workerCount < 1 || refillBatchSize < 1 || globalCheckInterval < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid work-stealing settings: workers=%d, refillBatch=%d, globalCheckInterval=%d",
+                    workerCount, refillBatchSize, globalCheckInterval));
+        }
+        this.globalQueue = Objects.requireNonNull(globalQueue);
+        this.localDeques = new ConcurrentLinkedDeque[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            localDeques[i] = new ConcurrentLinkedDeque<>();
+        }
+        this.refillBatchSize = refillBatchSize;
+        this.globalCheckInterval = globalCheckInterval;
+        this.localHits = new LongAdder();
+        this.globalFetches = new LongAdder();
+        this.steals = new LongAdder();
+    }
+
+    public BlockingQueue<Task> workerQueue(int workerIndex) {
+        if (workerIndex < 0 || workerIndex >= localDeques.length) {
+            throw new IllegalArgumentException("No local deque for worker " + workerIndex);
+        }
+        return new WorkerQueue(workerIndex);
+    }
+
+    public int getLocalQueuedCount() {
+        int total = 0;
+        for (ConcurrentLinkedDeque<Task> deque : localDeques) {
+            total += deque.size();
+        }
+        return total;
+    }
+
+    public int drainLocalTo(Collection<? super Task> target) {
+        int drained = 0;
+        for (ConcurrentLinkedDeque<Task> deque : localDeques) {
+            Task task;
+            while ((task = deque.pollFirst()) != null) {
+                target.add(task);
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getGlobalFetches() {
+        return globalFetches.sum();
+    }
+
+    public long getSteals() {
+        return steals.sum();
+    }
+
+    private final class WorkerQueue extends AbstractQueue<Task> implements BlockingQueue<Task> {
+
+        private final int index;
+        private final ConcurrentLinkedDeque<Task> local;
+        private long takes;
+
+        private WorkerQueue(int index) {
+            this.index = index;
+            this.local = localDeques[index];
+        }
+
+        @Override
+        public Task poll() {
+            // Periodically look at the global queue first so newly submitted high-priority
+            // work is not stuck behind whatever this worker already pulled locally.
+            if (++takes % globalCheckInterval == 0) {
+                Task task = globalQueue.poll();
+                if (task != null) {
+                    globalFetches.increment();
+                    return task;
+                }
+            }
+
+            Task task = local.pollFirst();
+            if (task != null) {
+                localHits.increment();
+                return task;
+            }
+
+            if (globalQueue.drainTo(local, refillBatchSize) > 0) {
+                globalFetches.increment();
+                task = local.pollFirst();
+                if (task != null) {
+                    return task;
+                }
+            }
+
+            return steal();
+        }
+
+        @Override
+        public Task take() throws InterruptedException {
+            while (true) {
+                Task task = poll();
+                if (task != null) {
+                    return task;
+                }
+                task = globalQueue.poll(IDLE_PARK_NANOS, TimeUnit.NANOSECONDS);
+                if (task != null) {
+                    globalFetches.increment();
+                    return task;
+                }
+            }
+        }
+
+        @Override
+        public Task poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (true) {
+                Task task = poll();
+                if (task != null) {
+                    return task;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                task = globalQueue.poll(Math.min(remaining, IDLE_PARK_NANOS), TimeUnit.NANOSECONDS);
+                if (task != null) {
+                    globalFetches.increment();
+                    return task;
+                }
+            }
+        }
+
+        @Override
+        public boolean offer(Task task) {
+            return local.offerLast(Objects.requireNonNull(task));
+        }
+
+        @Override
+        public boolean offer(Task task, long timeout, TimeUnit unit) {
+            return offer(task);
+        }
+
+        @Override
+        public void put(Task task) {
+            offer(task);
+        }
+
+        @Override
+        public Task peek() {
+            Task task = local.peekFirst();
+            return task != null ? task : globalQueue.peek();
+        }
+
+        // Counts the shared queue too: a worker deciding whether it has run out of work must see tasks a retry
+        // worker has just put back globally, not only its own deque.
+        @Override
+        public int size() {
+            return local.size() + globalQueue.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return local.isEmpty() && globalQueue.isEmpty();
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int drainTo(Collection<? super Task> target) {
+            return drainTo(target, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int drainTo(Collection<? super Task> target, int maxElements) {
+            Objects.requireNonNull(target);
+            if (target == this) {
+                throw new IllegalArgumentException("Cannot drain queue into itself");
+            }
+            int drained = 0;
+            Task task;
+            while (drained < maxElements && (task = poll()) != null) {
+                target.add(task);
+                drained++;
+            }
+            return drained;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return new ArrayList<>(local).iterator();
+        }
+
+        private Task steal() {
+            for (int i = 1; i < localDeques.length; i++) {
+                Task task = localDeques[(index + i) % localDeques.length].pollLast();
+                if (task != null) {
+                    steals.increment();
+                    return task;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package lii.concurqueuesystem.status;
+
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.model.Task;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+public class TaskStatusStore {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final byte EMPTY = 0;
+    private static final int SEGMENT_COUNT = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Segment[] segments;
+    private final long startNanos;
+    private final int retentionSeconds;
+    private final int maxTerminalPerSegment;
+
+    private final LongAdder totalTracked;
+    private final LongAdder[] statusCounts;
+    private final LongAdder[] evictedByStatus;
+    private volatile BiConsumer<UUID, TaskStatus> terminalListener = (id, status) -> { };
+
+    public TaskStatusStore(long retentionMillis, int maxTerminalEntries) {
+        if (retentionMillis <= 0 || maxTerminalEntries <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid status retention: %d ms, %d entries", retentionMillis, maxTerminalEntries));
+        }
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+        this.startNanos = System.nanoTime();
+        this.retentionSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retentionMillis));
+        this.maxTerminalPerSegment = Math.max(1, maxTerminalEntries / SEGMENT_COUNT);
+        this.totalTracked = new LongAdder();
+        this.statusCounts = new LongAdder[STATUSES.length];
+        for (int i = 0; i < STATUSES.length; i++) {
+            statusCounts[i] = new LongAdder();
+        }
+        this.evictedByStatus = new LongAdder[STATUSES.length];
+        for (int i = 0; i < STATUSES.length; i++) {
+            evictedByStatus[i] = new LongAdder();
+        }
+    }
+
+    public TaskStatus put(UUID id, TaskStatus status) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Segment segment = segments[hash & (SEGMENT_COUNT - 1)];
+        TaskStatus previous;
+        synchronized (segment) {
+            previous = segment.put(msb, lsb, hash, status, nowSeconds());
+        }
+        if (status.isTerminal() && (previous == null || !previous.isTerminal())) {
+            terminalListener.accept(id, status);
+        }
+        return previous;
+    }
+
+    public void setTerminalListener(BiConsumer<UUID, TaskStatus> terminalListener) {
+        this.terminalListener = Objects.requireNonNull(terminalListener);
+    }
+
+    // Tasks are bucketed by segment first, so each segment lock is taken once per batch rather than once per task.
+    public void putAll(Collection<Task> tasks, TaskStatus status) {
+        int size = tasks.size();
+        if (size == 0) {
+            return;
+        }
+        UUID[] ids = new UUID[size];
+        int[] hashes = new int[size];
+        int[] segmentStarts = new int[SEGMENT_COUNT + 1];
+        int n = 0;
+        for (Task task : tasks) {
+            UUID id = task.getId();
+            ids[n] = id;
+            hashes[n] = hash(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            segmentStarts[(hashes[n] & (SEGMENT_COUNT - 1)) + 1]++;
+            n++;
+        }
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segmentStarts[i + 1] += segmentStarts[i];
+        }
+        int[] order = new int[size];
+        int[] fill = segmentStarts.clone();
+        for (int i = 0; i < size; i++) {
+            order[fill[hashes[i] & (SEGMENT_COUNT - 1)]++] = i;
+        }
+
+        boolean[] becameTerminal = status.isTerminal() ? new boolean[size] : null;
+        int now = nowSeconds();
+        for (int s = 0; s < SEGMENT_COUNT; s++) {
+            if (segmentStarts[s] == segmentStarts[s + 1]) {
+                continue;
+            }
+            Segment segment = segments[s];
+            synchronized (segment) {
+                for (int k = segmentStarts[s]; k < segmentStarts[s + 1]; k++) {
+                    int i = order[k];
+                    TaskStatus previous = segment.put(ids[i].getMostSignificantBits(),
+                            ids[i].getLeastSignificantBits(), hashes[i], status, now);
+                    if (becameTerminal != null) {
+                        becameTerminal[i] = previous == null || !previous.isTerminal();
+                    }
+                }
+            }
+        }
+        if (becameTerminal != null) {
+            for (int i = 0; i < size; i++) {
+                if (becameTerminal[i]) {
+                    terminalListener.accept(ids[i], status);
+                }
+            }
+        }
+    }
+
+    public TaskStatus get(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Segment segment = segments[hash & (SEGMENT_COUNT - 1)];
+        synchronized (segment) {
+            int slot = segment.find(msb, lsb, hash);
+            return slot < 0 ? null : STATUSES[segment.states[slot] - 1];
+        }
+    }
+
+    public int size() {
+        return (int) (totalTracked.sum() - getEvicted());
+    }
+
+    public long count(TaskStatus status) {
+        // Evicted entries were terminal, so they still count under their final status.
+        return statusCounts[status.ordinal()].sum();
+    }
+
+    public Map<TaskStatus, Long> countByStatus() {
+        Map<TaskStatus, Long> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            long count = count(status);
+            if (count > 0) {
+                result.put(status, count);
+            }
+        }
+        return result;
+    }
+
+    public int evictExpired() {
+        int now = nowSeconds();
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                if (segment.terminal > 0 && now - segment.oldestTerminal >= retentionSeconds) {
+                    removed += segment.removeTerminalUpTo(now - retentionSeconds);
+                }
+            }
+        }
+        return removed;
+    }
+
+    public long getTotalTracked() {
+        return totalTracked.sum();
+    }
+
+    public long getEvicted() {
+        long total = 0;
+        for (LongAdder adder : evictedByStatus) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    private int nowSeconds() {
+        return (int) TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private final class Segment {
+        private long[] msbs;
+        private long[] lsbs;
+        private byte[] states;
+        private int[] touchedSeconds;
+        private int size;
+        private int terminal;
+        private int oldestTerminal = Integer.MAX_VALUE;
+
+        private Segment() {
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        private TaskStatus put(long msb, long lsb, int hash, TaskStatus status, int now) {
+            int slot = find(msb, lsb, hash);
+            TaskStatus previous = null;
+            if (slot >= 0) {
+                previous = STATUSES[states[slot] - 1];
+                statusCounts[previous.ordinal()].decrement();
+                if (previous.isTerminal()) {
+                    terminal--;
+                }
+            } else {
+                if (size + 1 > states.length * LOAD_FACTOR) {
+                    rehash(states.length * 2, Integer.MIN_VALUE, 0);
+                }
+                slot = insertionSlot(hash);
+                msbs[slot] = msb;
+                lsbs[slot] = lsb;
+                size++;
+                totalTracked.increment();
+            }
+
+            states[slot] = (byte) (status.ordinal() + 1);
+            statusCounts[status.ordinal()].increment();
+            touchedSeconds[slot] = now;
+            if (status.isTerminal()) {
+                terminal++;
+                oldestTerminal = Math.min(oldestTerminal, now);
+                if (terminal > maxTerminalPerSegment) {
+                    trimTerminal();
+                }
+            }
+            return previous;
+        }
+
+        private int find(long msb, long lsb, int hash) {
+            int mask = states.length - 1;
+            for (int slot = spread(hash) & mask; states[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (msbs[slot] == msb && lsbs[slot] == lsb) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private int insertionSlot(int hash) {
+            int mask = states.length - 1;
+            int slot = spread(hash) & mask;
+            while (states[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void trimTerminal() {
+            // Evict the oldest terminal entries down to 3/4 of the limit so trims stay amortized.
+            int[] ages = new int[terminal];
+            int n = 0;
+            for (int slot = 0; slot < states.length; slot++) {
+                if (states[slot] != EMPTY && STATUSES[states[slot] - 1].isTerminal()) {
+                    ages[n++] = touchedSeconds[slot];
+                }
+            }
+            Arrays.sort(ages, 0, n);
+            int excess = n - maxTerminalPerSegment * 3 / 4;
+            int cutoff = ages[excess - 1];
+            int older = 0;
+            while (ages[older] < cutoff) {
+                older++;
+            }
+            // Under load most entries share the cutoff second, so only as many of those go as the excess needs.
+            removeTerminal(cutoff, excess - older);
+        }
+
+        private int removeTerminalUpTo(int cutoffSeconds) {
+            return removeTerminal(cutoffSeconds, Integer.MAX_VALUE);
+        }
+
+        private int removeTerminal(int cutoffSeconds, int atCutoffLimit) {
+            int older = 0;
+            int atCutoff = 0;
+            for (int slot = 0; slot < states.length; slot++) {
+                if (isEvictable(slot, cutoffSeconds)) {
+                    if (touchedSeconds[slot] < cutoffSeconds) {
+                        older++;
+                    } else {
+                        atCutoff++;
+                    }
+                }
+            }
+            int survivors = size - older - Math.min(atCutoff, atCutoffLimit);
+            int capacity = INITIAL_SEGMENT_CAPACITY;
+            while (survivors > capacity * LOAD_FACTOR) {
+                capacity <<= 1;
+            }
+            int before = size;
+            rehash(capacity, cutoffSeconds, atCutoffLimit);
+            return before - size;
+        }
+
+        private boolean isEvictable(int slot, int cutoffSeconds) {
+            return states[slot] != EMPTY
+                    && STATUSES[states[slot] - 1].isTerminal()
+                    && touchedSeconds[slot] <= cutoffSeconds;
+        }
+
+        private void rehash(int capacity, int evictTerminalUpTo, int atCutoffLimit) {
+            long[] oldMsbs = msbs;
+            long[] oldLsbs = lsbs;
+            byte[] oldStates = states;
+            int[] oldTouched = touchedSeconds;
+
+            allocate(capacity);
+            size = 0;
+            terminal = 0;
+            oldestTerminal = Integer.MAX_VALUE;
+
+            for (int slot = 0; slot < oldStates.length; slot++) {
+                byte state = oldStates[slot];
+                if (state == EMPTY) {
+                    continue;
+                }
+                boolean isTerminal = STATUSES[state - 1].isTerminal();
+                if (isTerminal && oldTouched[slot] <= evictTerminalUpTo
+                        && (oldTouched[slot] < evictTerminalUpTo || atCutoffLimit-- > 0)) {
+                    evictedByStatus[state - 1].increment();
+                    continue;
+                }
+                int target = insertionSlot(hash(oldMsbs[slot], oldLsbs[slot]));
+                msbs[target] = oldMsbs[slot];
+                lsbs[target] = oldLsbs[slot];
+                states[target] = state;
+                touchedSeconds[target] = oldTouched[slot];
+                size++;
+                if (isTerminal) {
+                    terminal++;
+                    oldestTerminal = Math.min(oldestTerminal, oldTouched[slot]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            msbs = new long[capacity];
+            lsbs = new long[capacity];
+            states = new byte[capacity];
+            touchedSeconds = new int[capacity];
+        }
+
+        private int spread(int hash) {
+            // The low bits already picked the segment; probe with the high bits.
+            return hash >>> 6;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package lii.concurqueuesystem.util;
 
+import lii.concurqueuesystem.enums.LatencyType;
+import lii.concurqueuesystem.enums.PriorityBand;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -81,6 +85,55 @@ public class DisplayFormatter {
         return display.toString();
     }
 
+    public static String createAdmissionStatusDisplay(
+            String policy, int capacity, long admitted, long rejected,
+            long timedOut, long droppedLowest, long droppedOldest) {
+
+        StringBuilder display = new StringBuilder();
+
+        display.append(BRIGHT_CYAN).append(TOP_LEFT).append(HORIZONTAL.repeat(58)).append(TOP_RIGHT).append(RESET).append("\n");
+        display.append(BRIGHT_BLUE).append(VERTICAL).append(" 🚦 ADMISSION CONTROL").append(" ".repeat(38)).append(VERTICAL).append(RESET).append("\n");
+        display.append(VERTICAL).append(String.format("   Policy: %s%-20s%s │ Capacity: %-8d     ",
+                BRIGHT_CYAN, policy, RESET, capacity)).append(VERTICAL).append("\n");
+        display.append(VERTICAL).append(String.format("   Admitted: %s%-6d%s │ Rejected: %s%-6d%s │ Timed Out: %s%-6d%s",
+                BRIGHT_GREEN, admitted, RESET,
+                getDropColor(rejected), rejected, RESET,
+                getDropColor(timedOut), timedOut, RESET)).append(VERTICAL).append("\n");
+        display.append(VERTICAL).append(String.format("   Dropped Lowest: %s%-6d%s │ Dropped Oldest: %s%-6d%s       ",
+                getDropColor(droppedLowest), droppedLowest, RESET,
+                getDropColor(droppedOldest), droppedOldest, RESET)).append(VERTICAL).append("\n");
+        display.append(BRIGHT_CYAN).append(BOTTOM_LEFT).append(HORIZONTAL.repeat(58)).append(BOTTOM_RIGHT).append(RESET).append("\n");
+
+        return display.toString();
+    }
+
+    public static String createLatencyDisplay(LatencyMetrics latencyMetrics) {
+        StringBuilder display = new StringBuilder();
+
+        display.append(BRIGHT_CYAN).append(TOP_LEFT).append(HORIZONTAL.repeat(80)).append(TOP_RIGHT).append(RESET).append("\n");
+        display.append(BRIGHT_MAGENTA).append(VERTICAL).append(" ⏱️  LATENCY BY PRIORITY (ms)").append(" ".repeat(51)).append(VERTICAL).append(RESET).append("\n");
+        display.append(VERTICAL).append(String.format(" %-11s %-7s %8s %9s %9s %9s %9s %9s ",
+                "Type", "Band", "Count", "p50", "p90", "p99", "p999", "Max")).append(VERTICAL).append("\n");
+
+        for (LatencyType type : LatencyType.values()) {
+            for (PriorityBand band : PriorityBand.values()) {
+                double p99 = latencyMetrics.getPercentileMillis(type, band, 99.0);
+                display.append(VERTICAL).append(String.format(" %-11s %-7s %8d %9.2f %9.2f %s%9.2f%s %9.2f %9.2f ",
+                        type, band,
+                        latencyMetrics.getCount(type, band),
+                        latencyMetrics.getPercentileMillis(type, band, 50.0),
+                        latencyMetrics.getPercentileMillis(type, band, 90.0),
+                        getPerformanceColor(p99), p99, RESET,
+                        latencyMetrics.getPercentileMillis(type, band, 99.9),
+                        latencyMetrics.getMaxMillis(type, band))).append(VERTICAL).append("\n");
+            }
+        }
+
+        display.append(BRIGHT_CYAN).append(BOTTOM_LEFT).append(HORIZONTAL.repeat(80)).append(BOTTOM_RIGHT).append(RESET).append("\n");
+
+        return display.toString();
+    }
+
     public static String createFinalStatisticsDisplay(
             int totalProcessed, double avgProcessingTime, int remainingQueue,
             int retryQueue, int totalTracked, Map<String, Long> statusBreakdown) {
@@ -170,6 +223,11 @@ public class DisplayFormatter {
         return BRIGHT_GREEN;
     }
 
+    private static String getDropColor(long dropped) {
+        if (dropped > 0) return BRIGHT_RED;
+        return BRIGHT_GREEN;
+    }
+
     private static String getRemainingColor(int remaining) {
         if (remaining > 10) return BRIGHT_YELLOW;
         if (remaining > 0) return BRIGHT_CYAN;
@@ -184,6 +242,8 @@ public class DisplayFormatter {
             case "FAILED": return "❌";
             case "RETRY": return "🔄";
             case "ABANDONED": return "⚠️";
+            case "DROPPED": return "🚫";
+            case "EXPIRED": return "⌛";
             default: return "📊";
         }
     }
@@ -196,6 +256,8 @@ public class DisplayFormatter {
             case "FAILED": return BRIGHT_RED;
             case "RETRY": return BRIGHT_MAGENTA;
             case "ABANDONED": return BRIGHT_RED;
+            case "DROPPED": return BRIGHT_RED;
+            case "EXPIRED": return BRIGHT_YELLOW;
             default: return RESET;
         }
     }
@@ -0,0 +1,184 @@
+package lii.concurqueuesystem.codec;
+
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryTaskCodecTest {
+
+    private final BinaryTaskCodec codec = new BinaryTaskCodec();
+
+    @Test
+    void currentFormatRoundTripsEveryField() {
+        Task task = new Task("Prödücer-Task-€", 7, "payload 🚀 ü", Duration.ofMinutes(5), "key-ß")
+                .createRetry();
+
+        Task decoded = roundTrip(task);
+
+        assertEquals(task.getId(), decoded.getId());
+        assertEquals(task.getName(), decoded.getName());
+        assertEquals(7, decoded.getPriority());
+        assertEquals(1, decoded.getRetryCount());
+        assertEquals(task.getCreatedTimestamp().truncatedTo(ChronoUnit.MILLIS), decoded.getCreatedTimestamp());
+        assertEquals(task.getDeadline().truncatedTo(ChronoUnit.MILLIS), decoded.getDeadline());
+        assertEquals("key-ß", decoded.getIdempotencyKey());
+        assertEquals(task.getPayload(), decoded.getPayload());
+    }
+
+    @Test
+    void taskWithoutDeadlineOrKeyDecodesWithNeither() {
+        Task decoded = roundTrip(new Task("Producer-Task-1", 3, "payload"));
+        assertFalse(decoded.hasDeadline());
+        assertFalse(decoded.hasIdempotencyKey());
+    }
+
+    @Test
+    void encodedSizeMatchesTheBytesWritten() {
+        Task task = new Task("Näme-😀", 5, "中文 payload", null, "k");
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        codec.encode(task, buffer);
+        assertEquals(codec.encodedSize(task), buffer.position());
+    }
+
+    @Test
+    void decodeConsumesExactlyOneRecordFromASharedBuffer() {
+        Task first = new Task("Producer-Task-1", 2, "first", null, "key-1");
+        Task second = new Task("Producer-Task-2", 9, "second");
+        ByteBuffer buffer = ByteBuffer.allocate(codec.encodedSize(first) + codec.encodedSize(second));
+        codec.encode(first, buffer);
+        codec.encode(second, buffer);
+        buffer.flip();
+
+        assertEquals(first.getId(), codec.decode(buffer).getId());
+        assertEquals(second.getId(), codec.decode(buffer).getId());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void readsVersionTwoRecordsWrittenBeforeIdempotencyKeys() {
+        UUID id = UUID.randomUUID();
+        Instant created = Instant.ofEpochMilli(1_700_000_000_000L);
+        Instant deadline = created.plusSeconds(30);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put((byte) 2);
+        putHeader(buffer, id, 4, 2, created);
+        buffer.putLong(deadline.toEpochMilli());
+        putString(buffer, "Legacy-Task-1");
+        putPayload(buffer, "old payload");
+        buffer.flip();
+
+        Task decoded = codec.decode(buffer);
+
+        assertEquals(id, decoded.getId());
+        assertEquals("Legacy-Task-1", decoded.getName());
+        assertEquals(4, decoded.getPriority());
+        assertEquals(2, decoded.getRetryCount());
+        assertEquals(created, decoded.getCreatedTimestamp());
+        assertEquals(deadline, decoded.getDeadline());
+        assertNull(decoded.getIdempotencyKey());
+        assertEquals("old payload", decoded.getPayload());
+    }
+
+    @Test
+    void readsVersionOneRecordsWrittenBeforeDeadlines() {
+        UUID id = UUID.randomUUID();
+        Instant created = Instant.ofEpochMilli(1_600_000_000_000L);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put((byte) 1);
+        putHeader(buffer, id, 8, 0, created);
+        putString(buffer, "Legacy-Task-2");
+        putPayload(buffer, "");
+        buffer.flip();
+
+        Task decoded = codec.decode(buffer);
+
+        assertEquals(id, decoded.getId());
+        assertEquals(8, decoded.getPriority());
+        assertEquals(created, decoded.getCreatedTimestamp());
+        assertFalse(decoded.hasDeadline());
+        assertNull(decoded.getIdempotencyKey());
+        assertEquals("", decoded.getPayload());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void decodeNameReadsInPlaceForEveryVersion() {
+        Task task = new Task("Tenant-Task-€", 5, "payload", Duration.ofSeconds(5), "key");
+        ByteBuffer current = ByteBuffer.allocate(8 + codec.encodedSize(task));
+        current.position(8);
+        codec.encode(task, current);
+        current.position(8);
+        assertEquals("Tenant-Task-€", codec.decodeName(current));
+        assertEquals(8, current.position());
+
+        ByteBuffer legacy = ByteBuffer.allocate(128);
+        legacy.put((byte) 1);
+        putHeader(legacy, UUID.randomUUID(), 3, 0, Instant.now());
+        putString(legacy, "Legacy-Task-3");
+        putPayload(legacy, "payload");
+        legacy.flip();
+        assertEquals("Legacy-Task-3", codec.decodeName(legacy));
+        assertEquals(0, legacy.position());
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndDamagedRecords() {
+        ByteBuffer unknown = ByteBuffer.wrap(new byte[] {9, 0, 0, 0});
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(unknown));
+
+        Task task = new Task("Producer-Task-1", 5, "payload");
+        ByteBuffer full = ByteBuffer.allocate(codec.encodedSize(task));
+        codec.encode(task, full);
+        ByteBuffer truncated = ByteBuffer.wrap(full.array(), 0, full.capacity() - 3);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(truncated));
+
+        ByteBuffer badLength = ByteBuffer.allocate(64);
+        badLength.put((byte) 1);
+        putHeader(badLength, UUID.randomUUID(), 5, 0, Instant.now());
+        badLength.putShort((short) -5);
+        badLength.flip();
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(badLength));
+    }
+
+    @Test
+    void refusesToEncodeANameTooLongForItsLengthField() {
+        Task task = new Task("x".repeat(Short.MAX_VALUE + 1), 5, "payload");
+        ByteBuffer buffer = ByteBuffer.allocate(codec.encodedSize(task));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(task, buffer));
+    }
+
+    private Task roundTrip(Task task) {
+        ByteBuffer buffer = ByteBuffer.allocate(codec.encodedSize(task));
+        codec.encode(task, buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        return codec.decode(buffer);
+    }
+
+    private static void putHeader(ByteBuffer buffer, UUID id, int priority, int retryCount, Instant created) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        buffer.put((byte) priority).put((byte) retryCount);
+        buffer.putLong(created.toEpochMilli());
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static void putPayload(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+}
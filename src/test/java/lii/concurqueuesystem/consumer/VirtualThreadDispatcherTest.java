@@ -0,0 +1,115 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.handler.TaskHandlerRegistry;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import lii.concurqueuesystem.status.TaskStatusStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadDispatcherTest {
+
+    private static final int ASYNC_LIMIT = 64;
+    private static final int CONCURRENCY = 200;
+    private static final int TASKS = 150;
+
+    @Test
+    void synchronousTasksRunPastTheAsyncCompletionLimit() throws Exception {
+        CountDownLatch allRunning = new CountDownLatch(TASKS);
+        CountDownLatch release = new CountDownLatch(1);
+        // Every task blocks until all of them are running at once, which needs more than ASYNC_LIMIT threads.
+        TaskHandlerRegistry handlers = new TaskHandlerRegistry(task -> {
+            allRunning.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(null);
+        });
+        Fixture fixture = new Fixture(handlers, CONCURRENCY);
+        fixture.submit(TASKS);
+
+        Thread dispatcher = fixture.start();
+        boolean concurrent = allRunning.await(5, TimeUnit.SECONDS);
+        release.countDown();
+        fixture.drain(dispatcher);
+
+        assertTrue(concurrent, (TASKS - allRunning.getCount()) + " of " + TASKS + " tasks ran concurrently");
+        assertEquals(TASKS, fixture.tasksProcessed.get());
+        assertEquals(TASKS, fixture.statusStore.count(TaskStatus.COMPLETED));
+    }
+
+    @Test
+    void pendingCompletionsAreCappedByTheAsyncLimit() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        TaskHandlerRegistry handlers = new TaskHandlerRegistry(task -> {
+            started.incrementAndGet();
+            return gate.thenApply(ignored -> null);
+        });
+        int concurrency = 100;
+        int tasks = 300;
+        Fixture fixture = new Fixture(handlers, concurrency);
+        fixture.submit(tasks);
+
+        Thread dispatcher = fixture.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (started.get() < ASYNC_LIMIT + 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+        // Past the limit each virtual thread waits for a permit after starting its handler, so the dispatcher
+        // stops taking tasks once every thread is waiting.
+        int startedWhileCapped = started.get();
+        gate.complete(null);
+        fixture.drain(dispatcher);
+
+        assertTrue(startedWhileCapped <= ASYNC_LIMIT + concurrency, "started " + startedWhileCapped);
+        assertEquals(tasks, fixture.tasksProcessed.get());
+    }
+
+    private static final class Fixture {
+        private final PriorityBucketQueue taskQueue = new PriorityBucketQueue();
+        private final TaskStatusStore statusStore = new TaskStatusStore(60_000, 10_000);
+        private final AtomicInteger tasksProcessed = new AtomicInteger();
+        private final AtomicInteger tasksInFlight = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final VirtualThreadDispatcher dispatcher;
+
+        private Fixture(TaskHandlerRegistry handlers, int concurrency) {
+            TaskWorker worker = new TaskWorker(taskQueue, new LinkedBlockingQueue<>(), statusStore, tasksProcessed,
+                    new AtomicLong(), new AtomicInteger(), tasksInFlight, draining, new LatencyMetrics(), handlers,
+                    ASYNC_LIMIT, null);
+            this.dispatcher = new VirtualThreadDispatcher(taskQueue, worker, concurrency, tasksInFlight, draining);
+        }
+
+        private void submit(int count) throws InterruptedException {
+            for (int i = 0; i < count; i++) {
+                Task task = new Task("Virtual-Task-" + i, 5, "payload");
+                statusStore.put(task.getId(), TaskStatus.SUBMITTED);
+                taskQueue.put(task);
+            }
+        }
+
+        private Thread start() {
+            return Thread.ofPlatform().name("Dispatcher").start(dispatcher);
+        }
+
+        private void drain(Thread thread) throws InterruptedException {
+            draining.set(true);
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(thread.isAlive(), "dispatcher should leave once drained");
+            assertEquals(0, tasksInFlight.get());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package lii.concurqueuesystem.consumer;
+
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.handler.TaskHandlerRegistry;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.DelayedRetryQueue;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import lii.concurqueuesystem.queue.RetryBackoff;
+import lii.concurqueuesystem.queue.WorkStealingScheduler;
+import lii.concurqueuesystem.status.TaskStatusStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkStealingDrainTest {
+
+    private static final int TASKS = 40;
+    private static final int WORKERS = 3;
+
+    @Test
+    void drainFinishesRetriesRequeuedToTheGlobalQueue() throws Exception {
+        PriorityBucketQueue globalQueue = new PriorityBucketQueue();
+        DelayedRetryQueue retryQueue = new DelayedRetryQueue(new RetryBackoff(200, 1.0, 200, 0.0));
+        TaskStatusStore statusStore = new TaskStatusStore(60_000, 10_000);
+        AtomicInteger tasksProcessed = new AtomicInteger();
+        AtomicInteger tasksExpired = new AtomicInteger();
+        AtomicInteger tasksInFlight = new AtomicInteger();
+        AtomicBoolean draining = new AtomicBoolean();
+        // Every task fails its first attempt, so each one passes through the retry queue.
+        TaskHandlerRegistry handlers = new TaskHandlerRegistry(task -> {
+            if (task.getRetryCount() == 0) {
+                throw new IllegalStateException("first attempt fails");
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(globalQueue, WORKERS, 4, 8);
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        ExecutorService retryWorkers = Executors.newSingleThreadExecutor();
+        for (int i = 0; i < WORKERS; i++) {
+            workers.submit(new TaskWorker(scheduler.workerQueue(i), retryQueue, statusStore, tasksProcessed,
+                    new AtomicLong(), tasksExpired, tasksInFlight, draining, new LatencyMetrics(), handlers, 1,
+                    null));
+        }
+        retryWorkers.submit(new RetryWorker(retryQueue, globalQueue, statusStore, tasksExpired, tasksInFlight,
+                draining));
+
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task("Drain-Task-" + i, 1 + i % 10, "payload-" + i);
+            statusStore.put(task.getId(), TaskStatus.SUBMITTED);
+            globalQueue.put(task);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (retryQueue.size() < TASKS / 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(retryQueue.size() > 0, "drain should start with retries pending");
+
+        draining.set(true);
+        retryQueue.expedite();
+        workers.shutdown();
+        retryWorkers.shutdown();
+
+        assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS), "workers should leave once drained");
+        assertTrue(retryWorkers.awaitTermination(10, TimeUnit.SECONDS), "retry worker should leave once drained");
+        assertEquals(TASKS, tasksProcessed.get());
+        assertEquals(TASKS, statusStore.count(TaskStatus.COMPLETED));
+        assertEquals(0, tasksInFlight.get());
+        assertEquals(0, globalQueue.size());
+        assertEquals(0, scheduler.getLocalQueuedCount());
+    }
+}
@@ -0,0 +1,176 @@
+package lii.concurqueuesystem.logging;
+
+import lii.concurqueuesystem.enums.LogEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogDispatcherTest {
+
+    private Logger logger;
+    private List<LogRecord> records;
+
+    @BeforeEach
+    void setUp() {
+        records = Collections.synchronizedList(new ArrayList<>());
+        logger = Logger.getLogger("AsyncLogDispatcherTest-" + System.nanoTime());
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Handler handler : logger.getHandlers()) {
+            logger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    void eventsAreWrittenInPublicationOrderByClose() {
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(64);
+        dispatcher.start();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(dispatcher.publish(logger, LogEventType.TASK_QUEUED, "Producer", "task-" + i, null, 0, 0));
+        }
+        dispatcher.close();
+
+        assertEquals(50, records.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(records.get(i).getMessage().endsWith("task-" + i), records.get(i).getMessage());
+        }
+        assertEquals(50, dispatcher.getPublished());
+        assertEquals(0, dispatcher.getDropped());
+    }
+
+    @Test
+    void fullBufferDropsAndCountsEvents() throws Exception {
+        CountDownLatch formatting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Logger blocked = Logger.getLogger("AsyncLogDispatcherTest-blocked-" + System.nanoTime());
+        blocked.setUseParentHandlers(false);
+        blocked.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                formatting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4);
+        dispatcher.start();
+
+        // The formatter holds the first event in the handler, so its slot is not free until that returns.
+        assertTrue(dispatcher.publish(blocked, LogEventType.TASK_QUEUED, "Producer", "first", null, 0, 0));
+        assertTrue(formatting.await(5, TimeUnit.SECONDS));
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (dispatcher.publish(blocked, LogEventType.TASK_QUEUED, "Producer", "task-" + i, null, 0, 0)) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        dispatcher.close();
+
+        assertEquals(3, accepted);
+        assertEquals(7, dispatcher.getDropped());
+        assertEquals(4, dispatcher.getPublished());
+    }
+
+    @Test
+    void publishAfterCloseIsDroppedAndCounted() {
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4);
+        dispatcher.start();
+        dispatcher.close();
+
+        assertFalse(dispatcher.publish(logger, LogEventType.TASK_QUEUED, "Producer", "late", null, 0, 0));
+        assertEquals(1, dispatcher.getDropped());
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void startTwiceIsRejected() {
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4);
+        dispatcher.start();
+        try {
+            assertThrows(IllegalStateException.class, dispatcher::start);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void everyEventRacingCloseIsEitherWrittenOrCountedAsDropped() throws Exception {
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(256);
+        dispatcher.start();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> attempts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            attempts.add(pool.submit(() -> {
+                start.await();
+                int published = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    dispatcher.publish(logger, LogEventType.TASK_QUEUED, "Producer", "task", null, 0, 0);
+                    published++;
+                }
+                return published;
+            }));
+        }
+        start.countDown();
+        Thread.sleep(5);
+        dispatcher.close();
+
+        long total = 0;
+        for (Future<Integer> attempt : attempts) {
+            total += attempt.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(total, records.size() + dispatcher.getDropped());
+        assertEquals(records.size(), dispatcher.getPublished());
+        assertEquals(0, dispatcher.getBacklog());
+    }
+}
@@ -0,0 +1,128 @@
+package lii.concurqueuesystem.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static final long MAX_TRACKABLE_VALUE = (1L << 40) - 1;
+
+    @Test
+    void valuesBelowTheLinearRangeAreExact() {
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, bucketTop(value));
+        }
+    }
+
+    @Test
+    void everyValueLandsInABucketAtMostOneSixtyFourthAboveIt() {
+        List<Long> values = new ArrayList<>();
+        for (int bits = 7; bits < 40; bits++) {
+            long power = 1L << bits;
+            values.add(power - 1);
+            values.add(power);
+            values.add(power + 1);
+            values.add(power + power / 2);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            values.add(128 + (random.nextLong() & (MAX_TRACKABLE_VALUE >> 1)));
+        }
+
+        for (long value : values) {
+            long top = bucketTop(value);
+            assertTrue(top >= value, "bucket top " + top + " below " + value);
+            assertTrue(top - value <= value / 64, "bucket top " + top + " too far above " + value);
+        }
+    }
+
+    @Test
+    void adjacentBucketsLeaveNoGapAcrossAPowerOfTwo() {
+        long value = 128;
+        while (value < 1L << 20) {
+            long top = bucketTop(value);
+            assertEquals(top, bucketTop(top), "bucket containing " + value + " is not closed at " + top);
+            long next = bucketTop(top + 1);
+            assertTrue(next > top, "value " + (top + 1) + " fell back into the bucket ending at " + top);
+            value = top + 1;
+        }
+    }
+
+    @Test
+    void percentilesOfAUniformSpreadStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.recordValue(value);
+        }
+
+        assertWithinBucketPrecision(5_000, histogram.getValueAtPercentile(50));
+        assertWithinBucketPrecision(9_900, histogram.getValueAtPercentile(99));
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(10_000, histogram.getTotalCount());
+        assertEquals(50_005_000, histogram.getTotalValue());
+    }
+
+    @Test
+    void outOfRangeValuesAreClampedToTheTrackableRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5);
+        assertEquals(0, histogram.getValueAtPercentile(100));
+
+        histogram.recordValue(Long.MAX_VALUE);
+        assertEquals(MAX_TRACKABLE_VALUE, histogram.getMax());
+        assertEquals(MAX_TRACKABLE_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals(MAX_TRACKABLE_VALUE, histogram.getTotalValue());
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+
+    @Test
+    void concurrentRecordersLoseNoSamples() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 1; i <= perThread; i++) {
+                    histogram.recordValue(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals((long) threads * perThread, histogram.getTotalCount());
+        assertEquals(perThread, histogram.getMax());
+        assertEquals(perThread, histogram.getValueAtPercentile(100));
+    }
+
+    // The highest value reported for the bucket a value falls in, read back through the percentile API.
+    private static long bucketTop(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(value);
+        histogram.recordValue(MAX_TRACKABLE_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+
+    private static void assertWithinBucketPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 64, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,97 @@
+package lii.concurqueuesystem.monitor;
+
+import lii.concurqueuesystem.config.SystemConfig;
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.enums.MetricsExportMode;
+import lii.concurqueuesystem.enums.RateLimitMode;
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.metrics.LatencyMetrics;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.producer.RateLimiterRegistry;
+import lii.concurqueuesystem.queue.AdmissionStats;
+import lii.concurqueuesystem.queue.FairShareQueue;
+import lii.concurqueuesystem.status.TaskStatusStore;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SystemMonitorTest {
+
+    private static final String AWKWARD_TENANT = "Tenant \"A\"\\\n\t\u0001";
+
+    @TempDir
+    Path metricsDirectory;
+
+    @Test
+    void snapshotReportIsValidJsonWithEscapedNamesAndEmptySections() throws Exception {
+        JSONObject report = new JSONObject(monitor(MetricsExportMode.SNAPSHOT_FILES).generateJsonReport());
+
+        assertReportContents(report);
+    }
+
+    @Test
+    void streamedSampleIsOneValidJsonLineWithTheSameContents() throws Exception {
+        SystemMonitor monitor = monitor(MetricsExportMode.NDJSON_STREAM);
+        // Already shut down, so run() only writes the final sample.
+        monitor.run();
+
+        List<String> lines;
+        try (Stream<Path> files = Files.list(metricsDirectory)) {
+            lines = Files.readAllLines(files.findFirst().orElseThrow());
+        }
+        assertEquals(1, lines.size());
+        assertReportContents(new JSONObject(lines.get(0)));
+    }
+
+    private static void assertReportContents(JSONObject report) throws Exception {
+        JSONObject statuses = report.getJSONObject("task_status");
+        for (TaskStatus status : TaskStatus.values()) {
+            assertTrue(statuses.has(status.name().toLowerCase()), "missing " + status);
+        }
+        assertEquals(1, statuses.getLong("dropped"));
+        assertEquals(1, statuses.getLong("completed"));
+        assertEquals(0, report.getJSONObject("rate_limits").length());
+        assertEquals(1, report.getJSONObject("fair_share").getJSONObject(AWKWARD_TENANT).getInt("queued"));
+        assertEquals(Task.MAX_PRIORITY - Task.MIN_PRIORITY + 1, report.getJSONObject("max_queue_wait_ms").length());
+    }
+
+    private SystemMonitor monitor(MetricsExportMode mode) {
+        SystemConfig config = new SystemConfig();
+        config.setMetricsExportMode(mode);
+        config.setMetricsDirectory(metricsDirectory.toString());
+
+        AdmissionStats admissionStats = new AdmissionStats();
+        FairShareQueue fairShareQueue = new FairShareQueue(16, AdmissionPolicy.REJECT, admissionStats,
+                Task::getName, Map.of(), 1);
+        fairShareQueue.offer(new Task(AWKWARD_TENANT, 5, "payload"));
+
+        TaskStatusStore statusStore = new TaskStatusStore(60_000, 100);
+        statusStore.put(UUID.randomUUID(), TaskStatus.DROPPED);
+        statusStore.put(UUID.randomUUID(), TaskStatus.COMPLETED);
+
+        ThreadPoolExecutor workerPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        workerPool.shutdown();
+
+        return new SystemMonitor(fairShareQueue, new LinkedBlockingQueue<>(), workerPool, statusStore,
+                new AtomicBoolean(true), new AtomicInteger(), new AtomicLong(), new AtomicInteger(), new AtomicInteger(),
+                config, admissionStats, new LatencyMetrics(), null, null, null,
+                new RateLimiterRegistry(10.0, 10, RateLimitMode.BLOCK), fairShareQueue);
+    }
+}
@@ -0,0 +1,200 @@
+package lii.concurqueuesystem.persistence;
+
+import lii.concurqueuesystem.codec.BinaryTaskCodec;
+import lii.concurqueuesystem.enums.SyncPolicy;
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static lii.concurqueuesystem.queue.TestTasks.tasks;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskWriteAheadLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    // Large enough that a few dozen tasks spill over several segments.
+    private static final String LARGE_PAYLOAD = "payload-" + "x".repeat(200);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopeningReplaysOnlyUnacknowledgedTasksInOrder() {
+        Task first = new Task("Producer-Task-1", 3, "first");
+        Task second = new Task("Producer-Task-2", 7, "second");
+        Task third = new Task("Producer-Task-3", 5, "third");
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            wal.appendEnqueue(first);
+            wal.appendEnqueue(second);
+            wal.appendEnqueue(third);
+            wal.appendTombstone(second.getId());
+            assertEquals(2, wal.getLiveRecordCount());
+        }
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            List<Task> recovered = wal.takeRecoveredTasks();
+            assertEquals(List.of(first, third), recovered);
+            assertEquals("third", recovered.get(1).getPayload());
+            assertEquals(5, recovered.get(1).getPriority());
+            assertEquals(2, wal.getLiveRecordCount());
+            assertTrue(wal.takeRecoveredTasks().isEmpty());
+        }
+    }
+
+    @Test
+    void recoveryCompactsLiveRecordsIntoAFreshSegment() throws IOException {
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            for (Task task : tasks("Producer", 40, 5, LARGE_PAYLOAD)) {
+                wal.appendEnqueue(task);
+            }
+            assertTrue(wal.getSegmentCount() > 1);
+        }
+        List<Path> before = segmentFiles();
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            assertEquals(40, wal.takeRecoveredTasks().size());
+            List<Path> after = segmentFiles();
+            assertEquals(wal.getSegmentCount(), after.size());
+            assertTrue(after.stream().noneMatch(before::contains), "replayed segments were kept");
+        }
+    }
+
+    @Test
+    void replayStopsAtTheFirstRecordWhoseChecksumDoesNotMatch() throws IOException {
+        List<Task> tasks = tasks("Producer", 3, 5, LARGE_PAYLOAD);
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            tasks.forEach(wal::appendEnqueue);
+        }
+        Path segment = segmentFiles().get(0);
+        int firstRecord = 4 + 1 + new BinaryTaskCodec().encodedSize(tasks.get(0)) + 4;
+        flipByte(segment, firstRecord + 20);
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            assertEquals(List.of(tasks.get(0)), wal.takeRecoveredTasks());
+        }
+    }
+
+    @Test
+    void reEnqueuedTaskIsRecoveredOnceWithItsLatestState() {
+        Task original = new Task("Producer-Task-1", 5, "payload");
+        Task retry = original.createRetry();
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            wal.appendEnqueue(original);
+            wal.appendEnqueue(retry);
+            assertEquals(1, wal.getLiveRecordCount());
+        }
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            List<Task> recovered = wal.takeRecoveredTasks();
+            assertEquals(1, recovered.size());
+            assertEquals(1, recovered.get(0).getRetryCount());
+        }
+    }
+
+    @Test
+    void segmentsAreDeletedOnceEveryRecordInThemIsAcknowledged() throws IOException {
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            List<Task> tasks = tasks("Producer", 60, 5, LARGE_PAYLOAD);
+            wal.appendEnqueueAll(tasks);
+            int filled = wal.getSegmentCount();
+            assertTrue(filled > 2, "expected several segments, got " + filled);
+
+            for (Task task : tasks.subList(0, 30)) {
+                wal.appendTombstone(task.getId());
+            }
+            assertTrue(wal.getDeletedSegments() > 0);
+            assertEquals(wal.getSegmentCount(), segmentFiles().size());
+
+            for (Task task : tasks.subList(30, 60)) {
+                wal.appendTombstone(task.getId());
+            }
+            assertEquals(0, wal.getLiveRecordCount());
+            assertEquals(1, wal.getSegmentCount());
+            assertEquals(1, segmentFiles().size());
+        }
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE)) {
+            assertTrue(wal.takeRecoveredTasks().isEmpty());
+        }
+    }
+
+    @Test
+    void groupCommitMakesConcurrentAppendsDurableBeforeTheyReturn() throws Exception {
+        int writers = 4;
+        int perWriter = 50;
+        try (TaskWriteAheadLog wal = open(SyncPolicy.GROUP_COMMIT)) {
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(writers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (Task task : tasks("Producer", perWriter, 5, LARGE_PAYLOAD)) {
+                        wal.appendEnqueue(task);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            assertEquals(writers * perWriter, wal.getEnqueueRecords());
+            assertTrue(wal.getSyncs() < writers * perWriter, "every append paid for its own sync");
+        }
+
+        try (TaskWriteAheadLog wal = open(SyncPolicy.GROUP_COMMIT)) {
+            assertEquals(writers * perWriter, wal.takeRecoveredTasks().size());
+        }
+    }
+
+    @Test
+    void rejectsRecordsThatCannotFitAndAppendsAfterClose() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TaskWriteAheadLog(directory, 1024, SyncPolicy.EVERY_WRITE, 10));
+
+        TaskWriteAheadLog wal = open(SyncPolicy.EVERY_WRITE);
+        assertThrows(IllegalArgumentException.class,
+                () -> wal.appendEnqueue(new Task("Producer-Task-1", 5, "x".repeat(SEGMENT_BYTES))));
+        wal.close();
+        assertThrows(IllegalStateException.class,
+                () -> wal.appendEnqueue(new Task("Producer-Task-2", 5, "payload")));
+    }
+
+    private TaskWriteAheadLog open(SyncPolicy syncPolicy) {
+        return new TaskWriteAheadLog(directory, SEGMENT_BYTES, syncPolicy, 5);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void flipByte(Path path, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer single = ByteBuffer.allocate(1);
+            channel.read(single, offset);
+            single.put(0, (byte) (single.get(0) ^ 0xFF)).rewind();
+            channel.write(single, offset);
+        }
+    }
+}
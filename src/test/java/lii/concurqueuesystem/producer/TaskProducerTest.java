@@ -0,0 +1,54 @@
+package lii.concurqueuesystem.producer;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.enums.ProducerStrategy;
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.model.Task;
+import lii.concurqueuesystem.queue.AdmissionStats;
+import lii.concurqueuesystem.queue.IdempotencyCache;
+import lii.concurqueuesystem.queue.PriorityBucketQueue;
+import lii.concurqueuesystem.status.TaskStatusStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TaskProducerTest {
+
+    @Test
+    void submitAllReportsQueueRejectionsAndMergedDuplicates() throws Exception {
+        PriorityBucketQueue queue = new PriorityBucketQueue(4, AdmissionPolicy.REJECT, new AdmissionStats());
+        TaskStatusStore statusStore = new TaskStatusStore(60_000, 10_000);
+        IdempotencyCache cache = new IdempotencyCache(60_000, 1_000);
+        TaskProducer producer = new TaskProducer("Bulk", queue, statusStore, new AtomicBoolean(),
+                ProducerStrategy.BALANCED, 8, 1_000, 0, 0, cache, 0.0, null);
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(new Task("Bulk-Task-" + i, 5, "payload", null, "key-" + i));
+        }
+        batch.add(new Task("Bulk-Task-dup", 5, "payload", null, "key-0"));
+
+        TaskProducer.BatchResult result = producer.submitAll(batch);
+
+        assertEquals(4, result.getAdmitted());
+        assertEquals(1, result.getDeduplicated());
+        assertEquals(batch.subList(4, 6), result.getRejected());
+        assertEquals(4, queue.size());
+        assertEquals(4, statusStore.count(TaskStatus.SUBMITTED));
+        assertEquals(2, statusStore.count(TaskStatus.DROPPED));
+        assertEquals(4, producer.getTasksProduced().get());
+        assertEquals(2, producer.getTasksRejected().get());
+        assertEquals(1, producer.getTasksDeduplicated().get());
+        assertSame(batch.get(3), producer.getLastSubmitted());
+
+        // Rejected submissions release their keys, so a retry of the same key is admitted once there is room.
+        queue.clear();
+        Task retry = new Task("Bulk-Task-4-retry", 5, "payload", null, "key-4");
+        assertEquals(1, producer.submitAll(List.of(retry)).getAdmitted());
+    }
+}
@@ -0,0 +1,138 @@
+package lii.concurqueuesystem.producer;
+
+import lii.concurqueuesystem.enums.RateLimitMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void fullBucketAdmitsExactlyOneBurst() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 0.01, 5, RateLimitMode.REJECT);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(), "token " + i);
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(5, limiter.getPermitted());
+    }
+
+    @Test
+    void tokensRefillAtTheSustainedRate() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 20, 1, RateLimitMode.REJECT);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        Thread.sleep(70);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanTheBurst() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 100, 3, RateLimitMode.REJECT);
+        Thread.sleep(100);
+
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        assertEquals(3, admitted);
+    }
+
+    @Test
+    void acquireWaitsForTheNextTokenOnceTheBurstIsSpent() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 20, 1, RateLimitMode.BLOCK);
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis >= 40, "waited " + waitedMillis + " ms");
+        assertEquals(1, limiter.getThrottled());
+        assertEquals(2, limiter.getPermitted());
+        assertTrue(limiter.getThrottledMillis() >= 40);
+    }
+
+    @Test
+    void raisingTheRateRepricesTokensAlreadyBorrowed() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 1, 1, RateLimitMode.REJECT);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        // At the old rate the next token is a second away; at the new one it is due within a millisecond.
+        limiter.setLimits(1_000, 1);
+        Thread.sleep(10);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1_000, limiter.getSustainedPerSecond());
+    }
+
+    @Test
+    void raisingTheBurstAllowsMoreTokensAheadOfTime() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 0.01, 1, RateLimitMode.REJECT);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.setLimits(0.01, 4);
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        assertEquals(3, admitted);
+        assertEquals(4, limiter.getBurst());
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBurst() throws Exception {
+        int burst = 100;
+        int threads = 8;
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 0.01, burst, RateLimitMode.REJECT);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < burst; i++) {
+                    if (limiter.tryAcquire()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(burst, admitted.get());
+        assertEquals(burst, limiter.getPermitted());
+    }
+
+    @Test
+    void rejectsANonPositiveRateOrBurst() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketRateLimiter("Producer", 0, 1, RateLimitMode.BLOCK));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketRateLimiter("Producer", Double.NaN, 1, RateLimitMode.BLOCK));
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("Producer", 10, 1, RateLimitMode.BLOCK);
+        assertThrows(IllegalArgumentException.class, () -> limiter.setLimits(10, 0));
+        assertEquals(1, limiter.getBurst());
+    }
+}
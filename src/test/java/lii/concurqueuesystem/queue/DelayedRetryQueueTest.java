@@ -0,0 +1,153 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DelayedRetryQueueTest {
+
+    @Test
+    void backoffGrowsExponentiallyUpToTheCap() {
+        RetryBackoff backoff = new RetryBackoff(100, 2.0, 500, 0.0);
+        assertEquals(100, backoff.delayMillis(0));
+        assertEquals(100, backoff.delayMillis(1));
+        assertEquals(200, backoff.delayMillis(2));
+        assertEquals(400, backoff.delayMillis(3));
+        assertEquals(500, backoff.delayMillis(4));
+        assertEquals(500, backoff.delayMillis(30));
+    }
+
+    @Test
+    void jitterStaysWithinItsRatioOfTheDelay() {
+        RetryBackoff backoff = new RetryBackoff(1_000, 1.0, 1_000, 0.2);
+        for (int i = 0; i < 1_000; i++) {
+            long delay = backoff.delayMillis(1);
+            assertTrue(delay >= 800 && delay <= 1_200, "delay " + delay);
+        }
+    }
+
+    @Test
+    void rejectsAnInvalidBackoff() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryBackoff(-1, 2.0, 100, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBackoff(200, 2.0, 100, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBackoff(100, 0.5, 100, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBackoff(100, 2.0, 100, 1.5));
+    }
+
+    @Test
+    void retryIsHeldBackUntilItsBackoffHasPassed() throws Exception {
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(50, 1.0, 50, 0.0));
+        Task retry = retry(1);
+        long start = System.nanoTime();
+        queue.offer(retry);
+
+        assertNull(queue.poll());
+        assertEquals(1, queue.size());
+        assertSame(retry, queue.poll(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+    }
+
+    @Test
+    void retriesComeDueInBackoffOrderNotOfferOrder() throws Exception {
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(20, 4.0, 1_000, 0.0));
+        Task later = retry(2);
+        Task sooner = retry(1);
+        queue.offer(later);
+        queue.offer(sooner);
+
+        assertSame(sooner, queue.take());
+        assertSame(later, queue.take());
+    }
+
+    @Test
+    void retryIsReleasedAtItsDeadlineWhenTheBackoffRunsPastIt() throws Exception {
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(60_000, 1.0, 60_000, 0.0));
+        Task expiring = new Task("Producer-Task-1", 5, "payload", Duration.ofMillis(30)).createRetry();
+        queue.offer(expiring);
+
+        Task released = queue.poll(2, TimeUnit.SECONDS);
+        assertSame(expiring, released);
+        assertTrue(released.isExpired());
+    }
+
+    @Test
+    void drainToTakesOnlyDueRetriesWhileDrainAllToEmptiesTheQueue() throws Exception {
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(0, 1.0, 60_000, 0.0));
+        queue.offer(retry(0));
+        DelayedRetryQueue slow = new DelayedRetryQueue(new RetryBackoff(60_000, 1.0, 60_000, 0.0));
+        slow.offer(retry(1));
+        slow.offer(retry(1));
+
+        List<Task> drained = new ArrayList<>();
+        assertEquals(1, queue.drainTo(drained));
+        assertEquals(0, slow.drainTo(drained));
+        assertEquals(2, slow.drainAllTo(drained));
+        assertEquals(3, drained.size());
+        assertTrue(slow.isEmpty());
+    }
+
+    @Test
+    void expediteMakesWaitingAndLaterRetriesDueImmediately() throws Exception {
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(60_000, 1.0, 60_000, 0.0));
+        queue.offer(retry(1));
+        queue.offer(retry(2));
+        assertNull(queue.poll());
+
+        queue.expedite();
+        queue.offer(retry(3));
+
+        assertNotNull(queue.poll());
+        assertNotNull(queue.poll());
+        assertNotNull(queue.poll(1, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void concurrentConsumersReceiveEachRetryOnce() throws Exception {
+        int retries = 2_000;
+        DelayedRetryQueue queue = new DelayedRetryQueue(new RetryBackoff(1, 2.0, 20, 0.5));
+        for (int i = 0; i < retries; i++) {
+            queue.offer(retry(1 + i % 5));
+        }
+        Set<UUID> received = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> consumers = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            consumers.add(pool.submit(() -> {
+                Task task;
+                while ((task = queue.poll(200, TimeUnit.MILLISECONDS)) != null) {
+                    received.add(task.getId());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> consumer : consumers) {
+            consumer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(retries, received.size());
+    }
+
+    private static Task retry(int retryCount) {
+        return new Task(UUID.randomUUID(), "Producer-Task-1", 5, Instant.now(), "payload", retryCount);
+    }
+}
@@ -0,0 +1,227 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static lii.concurqueuesystem.queue.TestTasks.createdAt;
+import static lii.concurqueuesystem.queue.TestTasks.tasks;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairShareQueueTest {
+
+    @Test
+    void tenantsAreServedInProportionToTheirWeights() {
+        FairShareQueue queue = queue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, Map.of("Heavy", 3));
+        offer(queue, "Heavy", 12, 5);
+        offer(queue, "Light", 12, 5);
+
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            order.append(queue.poll().getName().charAt(0));
+        }
+
+        assertEquals("HHHLHHHL", order.toString());
+        Map<String, Long> dequeued = new HashMap<>();
+        queue.getTenantShares().forEach(share -> dequeued.put(share.getTenant(), share.getDequeued()));
+        assertEquals(Map.of("Heavy", 6L, "Light", 2L), dequeued);
+    }
+
+    @Test
+    void floodingTenantCannotStarveALateArrival() {
+        FairShareQueue queue = queue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, Map.of());
+        offer(queue, "Flood", 100, 10);
+        queue.poll();
+        Task late = new Task("Late-Task-1", 1, "payload");
+        queue.offer(late);
+
+        queue.poll();
+        assertSame(late, queue.poll());
+    }
+
+    @Test
+    void idleTenantKeepsNoCreditFromAnEarlierTurn() {
+        FairShareQueue queue = queue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, Map.of("Bursty", 4));
+        offer(queue, "Bursty", 1, 5);
+        offer(queue, "Steady", 6, 5);
+        assertEquals("Bursty", tenant(queue.poll()));
+
+        offer(queue, "Bursty", 6, 5);
+        List<String> next = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            next.add(tenant(queue.poll()));
+        }
+        assertEquals(List.of("Steady", "Bursty", "Bursty", "Bursty", "Bursty"), next);
+    }
+
+    @Test
+    void higherPriorityTasksLeadWithinATenant() {
+        FairShareQueue queue = queue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, Map.of());
+        Task low = new Task("Tenant-Task-1", 2, "payload");
+        Task high = new Task("Tenant-Task-2", 8, "payload");
+        queue.offer(low);
+        queue.offer(high);
+
+        assertSame(high, queue.peek());
+        assertSame(high, queue.poll());
+        assertSame(low, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void dropOldestEvictsFromTheLongestFlowOnly() {
+        AdmissionStats stats = new AdmissionStats();
+        FairShareQueue queue = queue(4, AdmissionPolicy.DROP_OLDEST, stats, Map.of());
+        List<Task> evicted = new ArrayList<>();
+        queue.setEvictionListener(evicted::add);
+        Instant now = Instant.now();
+        Task quietOldest = createdAt("Quiet-Task-1", 5, now.minusSeconds(60));
+        Task floodOldest = createdAt("Flood-Task-1", 9, now.minusSeconds(30));
+        queue.offer(quietOldest);
+        queue.offer(floodOldest);
+        queue.offer(createdAt("Flood-Task-2", 3, now.minusSeconds(20)));
+        queue.offer(createdAt("Flood-Task-3", 3, now.minusSeconds(10)));
+
+        assertTrue(queue.offer(createdAt("Quiet-Task-2", 5, now)));
+
+        assertEquals(List.of(floodOldest), evicted);
+        assertEquals(1, stats.getDroppedOldest());
+        assertEquals(4, queue.size());
+        assertTrue(queue.contains(quietOldest));
+    }
+
+    @Test
+    void dropLowestRefusesTheFloodingTenantsOwnLowerTask() {
+        AdmissionStats stats = new AdmissionStats();
+        FairShareQueue queue = queue(3, AdmissionPolicy.DROP_LOWEST_PRIORITY, stats, Map.of());
+        List<Task> evicted = new ArrayList<>();
+        queue.setEvictionListener(evicted::add);
+        Task floodLow = new Task("Flood-Task-1", 4, "payload");
+        queue.offer(floodLow);
+        queue.offer(new Task("Flood-Task-2", 6, "payload"));
+        queue.offer(new Task("Quiet-Task-1", 1, "payload"));
+
+        assertFalse(queue.offer(new Task("Flood-Task-3", 3, "payload")));
+        assertTrue(evicted.isEmpty());
+
+        assertTrue(queue.offer(new Task("Quiet-Task-2", 1, "payload")));
+        assertEquals(List.of(floodLow), evicted);
+        assertEquals(2, stats.getDroppedLowest());
+    }
+
+    @Test
+    void offerAllFillsCapacityThenAppliesThePolicyToTheOverflow() {
+        AdmissionStats stats = new AdmissionStats();
+        FairShareQueue rejecting = queue(3, AdmissionPolicy.REJECT, stats, Map.of());
+        List<Task> batch = tasks("Tenant", 5, 5);
+        assertEquals(batch.subList(3, 5), rejecting.offerAll(batch, 0, TimeUnit.MILLISECONDS));
+        assertEquals(2, stats.getRejected());
+
+        FairShareQueue dropping = queue(3, AdmissionPolicy.DROP_OLDEST, new AdmissionStats(), Map.of());
+        List<Task> evicted = new ArrayList<>();
+        dropping.setEvictionListener(evicted::add);
+        assertTrue(dropping.offerAll(batch, 0, TimeUnit.MILLISECONDS).isEmpty());
+        assertEquals(batch.subList(0, 2), evicted);
+        assertEquals(3, dropping.size());
+    }
+
+    @Test
+    void blockingOfferTimesOutAndResumesOnceASlotFrees() throws Exception {
+        AdmissionStats stats = new AdmissionStats();
+        FairShareQueue queue = queue(1, AdmissionPolicy.BLOCK, stats, Map.of());
+        queue.offer(new Task("Tenant-Task-1", 5, "payload"));
+        assertFalse(queue.offer(new Task("Tenant-Task-2", 5, "payload"), 20, TimeUnit.MILLISECONDS));
+        assertEquals(1, stats.getTimedOut());
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<List<Task>> batch = pool.submit(() -> queue.offerAll(tasks("Other", 2, 5), 5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.poll(5, TimeUnit.SECONDS) != null);
+        }
+        assertTrue(batch.get(5, TimeUnit.SECONDS).isEmpty());
+        pool.shutdown();
+    }
+
+    @Test
+    void rejectsWeightsBelowOne() {
+        FairShareQueue queue = queue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK, Map.of());
+        assertThrows(IllegalArgumentException.class, () -> queue.setWeight("Tenant", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> queue(8, AdmissionPolicy.BLOCK, Map.of("Tenant", -1)));
+    }
+
+    @Test
+    void concurrentProducersAndConsumersDeliverEveryTaskOnce() throws Exception {
+        int producers = 4;
+        int perProducer = 2_000;
+        FairShareQueue queue = queue(16, AdmissionPolicy.BLOCK, Map.of("Tenant0", 2));
+        Set<UUID> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            String tenant = "Tenant" + p;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (Task task : tasks(tenant, perProducer, 5)) {
+                    queue.put(task);
+                }
+                return null;
+            }));
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    received.add(queue.take().getId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(producers * perProducer, received.size());
+        assertEquals(0, queue.size());
+    }
+
+    private static FairShareQueue queue(int capacity, AdmissionPolicy policy, Map<String, Integer> weights) {
+        return queue(capacity, policy, new AdmissionStats(), weights);
+    }
+
+    private static FairShareQueue queue(int capacity, AdmissionPolicy policy, AdmissionStats stats,
+                                        Map<String, Integer> weights) {
+        return new FairShareQueue(capacity, policy, stats, FairShareQueue.BY_NAME_PREFIX, weights, 1);
+    }
+
+    private static void offer(FairShareQueue queue, String tenant, int count, int priority) {
+        for (int i = 0; i < count; i++) {
+            queue.offer(new Task(tenant + "-Task-" + i, priority, "payload"));
+        }
+    }
+
+    private static String tenant(Task task) {
+        return FairShareQueue.BY_NAME_PREFIX.apply(task);
+    }
+}
@@ -0,0 +1,98 @@
+package lii.concurqueuesystem.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void secondSubmissionWithinTheWindowIsMergedIntoTheFirst() {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 1_000);
+        UUID first = UUID.randomUUID();
+
+        assertNull(cache.putIfAbsent("key", first));
+        assertEquals(first, cache.putIfAbsent("key", UUID.randomUUID()));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void keyIsFreeAgainOnceTheWindowHasPassed() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(50, 1_000);
+        assertNull(cache.putIfAbsent("key", UUID.randomUUID()));
+        Thread.sleep(80);
+
+        UUID second = UUID.randomUUID();
+        assertNull(cache.putIfAbsent("key", second));
+        assertEquals(second, cache.putIfAbsent("key", UUID.randomUUID()));
+    }
+
+    @Test
+    void releaseOnlyFreesTheKeyForItsOwnHolder() {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 1_000);
+        UUID holder = UUID.randomUUID();
+        cache.putIfAbsent("key", holder);
+
+        cache.release("key", UUID.randomUUID());
+        assertEquals(holder, cache.putIfAbsent("key", UUID.randomUUID()));
+
+        cache.release("key", holder);
+        assertNull(cache.putIfAbsent("key", UUID.randomUUID()));
+    }
+
+    @Test
+    void fullSegmentsEvictTheLeastRecentlySeenKeys() {
+        int maxKeys = 32;
+        IdempotencyCache cache = new IdempotencyCache(60_000, maxKeys);
+        for (int i = 0; i < 1_000; i++) {
+            cache.putIfAbsent("key-" + i, UUID.randomUUID());
+        }
+
+        assertTrue(cache.size() <= maxKeys, "size " + cache.size());
+        assertEquals(1_000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    void rejectsAWindowOrCapacityItCannotHonour() {
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(1_000, 8));
+    }
+
+    @Test
+    void concurrentSubmissionsOfOneKeyAdmitExactlyOne() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(60_000, 1_000);
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<UUID>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return cache.putIfAbsent("shared", UUID.randomUUID());
+            }));
+        }
+        start.countDown();
+
+        int admitted = 0;
+        for (Future<UUID> result : results) {
+            if (result.get() == null) {
+                admitted++;
+            }
+        }
+        pool.shutdown();
+        assertEquals(1, admitted);
+        assertEquals(threads - 1, cache.getHits());
+    }
+}
@@ -0,0 +1,243 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.codec.BinaryTaskCodec;
+import lii.concurqueuesystem.codec.DirectBufferPool;
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static lii.concurqueuesystem.queue.TestTasks.tasks;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapPayloadQueueTest {
+
+    private static final int SLAB_BYTES = 64 * 1024;
+
+    @Test
+    void wholeTaskIsStoredOffHeapAndRestoredExactlyOnPoll() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        PriorityBucketQueue delegate = new PriorityBucketQueue();
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(delegate, pool);
+        Task task = new Task("Producer-Task-1", 7, "payload ü", Duration.ofMinutes(1), "key-1");
+        task.markEnqueued();
+
+        assertTrue(queue.offer(task));
+        Task stored = delegate.peek();
+        assertInstanceOf(OffHeapTask.class, stored);
+        assertEquals(new BinaryTaskCodec().encodedSize(task), pool.getStoredBytes());
+        assertEquals(task.getId(), stored.getId());
+        assertEquals("Producer-Task-1", stored.getName());
+
+        Task polled = queue.poll();
+        assertFalse(polled instanceof OffHeapTask);
+        assertEquals(task.getId(), polled.getId());
+        assertEquals(task.getName(), polled.getName());
+        assertEquals(task.getPayload(), polled.getPayload());
+        assertEquals(task.getIdempotencyKey(), polled.getIdempotencyKey());
+        assertEquals(task.getCreatedNanos(), polled.getCreatedNanos());
+        assertEquals(task.getEnqueuedNanos(), polled.getEnqueuedNanos());
+        assertEquals(task.getDeadlineNanos(), polled.getDeadlineNanos());
+        assertTrue(polled.hasDeadline());
+        assertEquals(0, pool.getStoredBytes());
+        assertThrows(IllegalStateException.class, stored::getName);
+    }
+
+    @Test
+    void queuesStillOrderAndRouteTasksWhileTheyAreEncoded() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(new FairShareQueue(), pool);
+        queue.offer(new Task("Heavy-Task-1", 2, "payload"));
+        queue.offer(new Task("Heavy-Task-2", 9, "payload"));
+        queue.offer(new Task("Heavy-Task-3", 5, "payload"));
+        queue.offer(new Task("Light-Task-1", 1, "payload"));
+
+        List<String> order = new ArrayList<>();
+        Task task;
+        while ((task = queue.poll()) != null) {
+            order.add(task.getName());
+        }
+        assertEquals(List.of("Heavy-Task-2", "Light-Task-1", "Heavy-Task-3", "Heavy-Task-1"), order);
+        assertEquals(0, pool.getStoredBytes());
+    }
+
+    @Test
+    void rejectedTasksReleaseTheirSlotsAndComeBackAsTheCallersObjects() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(
+                new PriorityBucketQueue(2, AdmissionPolicy.REJECT, new AdmissionStats()), pool);
+        List<Task> batch = tasks("Producer", 4, 5);
+
+        List<Task> rejected = queue.offerAll(batch, 0, TimeUnit.MILLISECONDS);
+        assertEquals(2, rejected.size());
+        assertSame(batch.get(2), rejected.get(0));
+        assertSame(batch.get(3), rejected.get(1));
+        assertFalse(queue.offer(new Task("Producer-Task-9", 5, "payload")));
+
+        long stored = pool.getStoredBytes();
+        queue.clear();
+        assertTrue(stored > 0);
+        assertEquals(0, pool.getStoredBytes());
+    }
+
+    @Test
+    void peekIterateAndRemoveWorkOnDecodedCopies() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(new PriorityBucketQueue(), pool);
+        List<Task> batch = tasks("Producer", 3, 5);
+        batch.forEach(queue::offer);
+
+        Task head = queue.peek();
+        assertFalse(head instanceof OffHeapTask);
+        assertEquals(batch.get(0), head);
+        for (Task task : queue) {
+            assertFalse(task instanceof OffHeapTask);
+            assertEquals("payload", task.getPayload());
+        }
+
+        assertTrue(queue.remove(batch.get(1)));
+        assertFalse(queue.remove(batch.get(1)));
+        assertEquals(2, queue.size());
+        assertEquals(2L * new BinaryTaskCodec().encodedSize(batch.get(0)), pool.getStoredBytes());
+    }
+
+    @Test
+    void tasksTooLargeForASlotStayOnTheHeap() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(new PriorityBucketQueue(), pool);
+        Task large = new Task("Producer-Task-1", 5, "x".repeat(pool.getMaxSlotBytes()));
+        Task noPayload = new Task("Producer-Task-2", 5, null);
+
+        queue.offer(large);
+        queue.offer(noPayload);
+
+        assertEquals(1, queue.getOnHeapFallbacks());
+        assertEquals(0, pool.getStoredBytes());
+        assertSame(large, queue.poll());
+        assertNull(queue.poll().getPayload());
+    }
+
+    @Test
+    void evictedVictimCanBeReadBeforeItIsReleased() {
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        PriorityBucketQueue delegate = new PriorityBucketQueue(1, AdmissionPolicy.DROP_OLDEST, new AdmissionStats());
+        List<String> evicted = new ArrayList<>();
+        delegate.setEvictionListener(victim -> {
+            evicted.add(victim.getName());
+            OffHeapPayloadQueue.release(victim);
+        });
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(delegate, pool);
+        Task first = new Task("Producer-Task-1", 5, "payload");
+        Task second = new Task("Producer-Task-2", 5, "payload");
+
+        queue.offer(first);
+        queue.offer(second);
+
+        assertEquals(List.of("Producer-Task-1"), evicted);
+        assertEquals(new BinaryTaskCodec().encodedSize(second), pool.getStoredBytes());
+        assertEquals(second, queue.poll());
+    }
+
+    @Test
+    void monitorsReadingTheQueueNeverSeeAnotherTasksSlot() throws Exception {
+        int producers = 2;
+        int perProducer = 5_000;
+        int total = producers * perProducer;
+        DirectBufferPool pool = new DirectBufferPool(SLAB_BYTES);
+        OffHeapPayloadQueue queue = new OffHeapPayloadQueue(
+                new PriorityBucketQueue(64, AdmissionPolicy.BLOCK, new AdmissionStats()), pool);
+        Map<String, String> delivered = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(total);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger mismatches = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers * 2 + 1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            int producerId = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    String name = "Producer" + producerId + "-Task-" + i;
+                    queue.put(new Task(name, 1 + i % Task.MAX_PRIORITY, "payload of " + name));
+                }
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (remaining.get() > 0) {
+                    Task task = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        delivered.put(task.getName(), task.getPayload());
+                        remaining.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            start.await();
+            while (!done.get()) {
+                for (Task task : queue) {
+                    if (!task.getPayload().equals("payload of " + task.getName())) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                Task head = queue.peek();
+                if (head != null && !head.getPayload().equals("payload of " + head.getName())) {
+                    mismatches.incrementAndGet();
+                }
+            }
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> future : futures.subList(0, producers * 2)) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        futures.get(producers * 2).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(total, delivered.size());
+        delivered.forEach((name, payload) -> assertEquals("payload of " + name, payload));
+        assertEquals(0, mismatches.get());
+        assertEquals(0, pool.getStoredBytes());
+    }
+
+    @Test
+    void poolPacksSlotsInHalfStepSizeClassesAndReusesThem() {
+        DirectBufferPool pool = new DirectBufferPool(4096);
+        // 600 bytes takes a 768 byte slot, so five share a 4 KB slab where 1 KB slots would fit four.
+        List<Long> slots = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            slots.add(pool.reserve(600));
+        }
+        assertEquals(4096, pool.getAllocatedBytes());
+
+        slots.forEach(slot -> pool.release(slot, 600));
+        for (int i = 0; i < 5; i++) {
+            pool.reserve(600);
+        }
+        assertEquals(4096, pool.getAllocatedBytes());
+        assertEquals(DirectBufferPool.NO_SLOT, pool.reserve(pool.getMaxSlotBytes() + 1));
+    }
+}
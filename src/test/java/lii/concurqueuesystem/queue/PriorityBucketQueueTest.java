@@ -0,0 +1,296 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.enums.AdmissionPolicy;
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static lii.concurqueuesystem.queue.TestTasks.createdAt;
+import static lii.concurqueuesystem.queue.TestTasks.tasks;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityBucketQueueTest {
+
+    @Test
+    void pollsHighestPriorityFirstAndFifoWithinAClampedLevel() {
+        PriorityBucketQueue queue = new PriorityBucketQueue();
+        Task lowFirst = new Task("Low-1", -3, "payload");
+        Task high = new Task("High", 9, "payload");
+        Task lowSecond = new Task("Low-2", 1, "payload");
+        Task outOfRange = new Task("Clamped", 42, "payload");
+        queue.offer(lowFirst);
+        queue.offer(high);
+        queue.offer(lowSecond);
+        queue.offer(outOfRange);
+
+        assertSame(outOfRange, queue.poll());
+        assertSame(high, queue.poll());
+        assertSame(lowFirst, queue.poll());
+        assertSame(lowSecond, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void rejectsOnceEveryReservedSlotIsTaken() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(3, AdmissionPolicy.REJECT, stats);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(new Task("Task-" + i, 5, "payload")));
+        }
+
+        assertFalse(queue.offer(new Task("Overflow", 10, "payload")));
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(3, stats.getAdmitted());
+        assertEquals(1, stats.getRejected());
+
+        queue.poll();
+        assertEquals(1, queue.remainingCapacity());
+        assertTrue(queue.offer(new Task("Refill", 5, "payload")));
+    }
+
+    @Test
+    void offerAllReservesWhatFitsAndReturnsTheRestInOrder() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(4, AdmissionPolicy.REJECT, stats);
+        List<Task> batch = tasks("Producer", 6, 5);
+
+        List<Task> rejected = queue.offerAll(batch, 0, TimeUnit.MILLISECONDS);
+
+        assertEquals(batch.subList(4, 6), rejected);
+        assertEquals(4, queue.size());
+        assertEquals(4, stats.getAdmitted());
+        assertEquals(2, stats.getRejected());
+    }
+
+    @Test
+    void rejectsAnInvalidConfiguration() {
+        AdmissionStats stats = new AdmissionStats();
+        assertThrows(IllegalArgumentException.class,
+                () -> new PriorityBucketQueue(0, AdmissionPolicy.BLOCK, stats));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PriorityBucketQueue(8, AdmissionPolicy.BLOCK, stats, -1, Task.MAX_PRIORITY));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PriorityBucketQueue(8, AdmissionPolicy.BLOCK, stats, 100, Task.MAX_PRIORITY + 1));
+    }
+
+    @Test
+    void dropLowestEvictsTheLowestQueuedTaskForAHigherOne() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(2, AdmissionPolicy.DROP_LOWEST_PRIORITY, stats);
+        List<Task> evicted = new ArrayList<>();
+        queue.setEvictionListener(evicted::add);
+        Task low = new Task("Low", 2, "payload");
+        Task mid = new Task("Mid", 5, "payload");
+        queue.offer(low);
+        queue.offer(mid);
+
+        Task high = new Task("High", 8, "payload");
+        assertTrue(queue.offer(high));
+        assertEquals(List.of(low), evicted);
+
+        assertFalse(queue.offer(new Task("NotHigher", 5, "payload")));
+        assertEquals(2, stats.getDroppedLowest());
+        assertEquals(2, queue.size());
+        assertSame(high, queue.poll());
+        assertSame(mid, queue.poll());
+    }
+
+    @Test
+    void dropOldestEvictsTheEarliestCreatedHeadAcrossLevels() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(2, AdmissionPolicy.DROP_OLDEST, stats);
+        List<Task> evicted = new ArrayList<>();
+        queue.setEvictionListener(evicted::add);
+        Instant now = Instant.now();
+        Task oldest = createdAt("Oldest", 9, now.minusSeconds(30));
+        Task newer = createdAt("Newer", 3, now.minusSeconds(10));
+        queue.offer(newer);
+        queue.offer(oldest);
+
+        Task incoming = createdAt("Incoming", 1, now);
+        assertTrue(queue.offer(incoming));
+
+        assertEquals(List.of(oldest), evicted);
+        assertEquals(1, stats.getDroppedOldest());
+        assertSame(newer, queue.poll());
+        assertSame(incoming, queue.poll());
+    }
+
+    @Test
+    void dropPoliciesAdmitAnOfferAllOverflowByEvictingPerTask() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(3, AdmissionPolicy.DROP_LOWEST_PRIORITY, stats);
+        AtomicInteger evicted = new AtomicInteger();
+        queue.setEvictionListener(task -> evicted.incrementAndGet());
+        queue.offerAll(tasks("Producer", 3, 2), 0, TimeUnit.MILLISECONDS);
+
+        List<Task> batch = new ArrayList<>(tasks("Producer", 2, 7));
+        batch.add(new Task("TooLow", 1, "payload"));
+        List<Task> rejected = queue.offerAll(batch, 0, TimeUnit.MILLISECONDS);
+
+        assertEquals(List.of(batch.get(2)), rejected);
+        assertEquals(2, evicted.get());
+        assertEquals(2, queue.sizeAt(7));
+        assertEquals(1, queue.sizeAt(2));
+    }
+
+    @Test
+    void blockingOfferTimesOutWhenNoSlotFrees() throws Exception {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(1, AdmissionPolicy.BLOCK, stats);
+        queue.offer(new Task("Holder", 5, "payload"));
+
+        long start = System.nanoTime();
+        assertFalse(queue.offer(new Task("Waiter", 5, "payload"), 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, stats.getTimedOut());
+    }
+
+    @Test
+    void blockedProducersResumeAsConsumersFreeSlots() throws Exception {
+        PriorityBucketQueue queue = new PriorityBucketQueue(1, AdmissionPolicy.BLOCK, new AdmissionStats());
+        queue.offer(new Task("Holder", 5, "payload"));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<List<Task>> batch = pool.submit(() -> queue.offerAll(tasks("Producer", 3, 5), 5, TimeUnit.SECONDS));
+        Future<?> single = pool.submit(() -> {
+            queue.put(new Task("Put", 5, "payload"));
+            return null;
+        });
+
+        int polled = 0;
+        for (int attempt = 0; polled < 5 && attempt < 50; attempt++) {
+            if (queue.poll(100, TimeUnit.MILLISECONDS) != null) {
+                polled++;
+            }
+        }
+        assertEquals(5, polled);
+        assertTrue(batch.get(5, TimeUnit.SECONDS).isEmpty());
+        single.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void blockingOfferAllReturnsWhatStillDidNotFitAtTheTimeout() {
+        AdmissionStats stats = new AdmissionStats();
+        PriorityBucketQueue queue = new PriorityBucketQueue(2, AdmissionPolicy.BLOCK, stats);
+        List<Task> batch = tasks("Producer", 5, 5);
+
+        List<Task> rejected = queue.offerAll(batch, 20, TimeUnit.MILLISECONDS);
+
+        assertEquals(batch.subList(2, 5), rejected);
+        assertEquals(3, stats.getTimedOut());
+    }
+
+    @Test
+    void agingPromotesWaitingTasksByWholeIntervalsUpToTheCeiling() {
+        long intervalMillis = 60_000;
+        PriorityBucketQueue queue = new PriorityBucketQueue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK,
+                new AdmissionStats(), intervalMillis, 5);
+        Task lowFirst = new Task("Low-1", 1, "payload");
+        Task lowSecond = new Task("Low-2", 1, "payload");
+        Task mid = new Task("Mid", 3, "payload");
+        Task aboveCeiling = new Task("High", 7, "payload");
+        List.of(lowFirst, lowSecond, mid, aboveCeiling).forEach(queue::offer);
+
+        assertEquals(0, queue.promoteAged(System.nanoTime()));
+
+        long threeIntervalsLater = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis) * 3;
+        assertEquals(3, queue.promoteAged(threeIntervalsLater));
+        assertEquals(3, queue.getPromotions());
+        assertEquals(2, queue.sizeAt(4));
+        assertEquals(1, queue.sizeAt(5));
+        assertEquals(0, queue.sizeAt(1));
+        assertEquals(1, queue.sizeAt(7));
+
+        assertSame(aboveCeiling, queue.poll());
+        assertSame(mid, queue.poll());
+        assertTrue(queue.remove(lowSecond));
+        assertSame(lowFirst, queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void pollingAgesTheQueueOncePerInterval() throws Exception {
+        PriorityBucketQueue queue = new PriorityBucketQueue(Integer.MAX_VALUE, AdmissionPolicy.BLOCK,
+                new AdmissionStats(), 20, Task.MAX_PRIORITY);
+        Task starved = new Task("Starved", 1, "payload");
+        queue.offer(starved);
+        Thread.sleep(70);
+
+        queue.offer(new Task("Fresh", 2, "payload"));
+        assertSame(starved, queue.poll());
+        assertTrue(queue.getPromotions() > 0);
+    }
+
+    @Test
+    void concurrentProducersAndConsumersNeverExceedCapacityOrLoseTasks() throws Exception {
+        int capacity = 32;
+        int producers = 4;
+        int perProducer = 5_000;
+        int total = producers * perProducer;
+        PriorityBucketQueue queue = new PriorityBucketQueue(capacity, AdmissionPolicy.REJECT, new AdmissionStats());
+        Set<UUID> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger remaining = new AtomicInteger(total);
+        AtomicInteger maxObservedSize = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            int producerId = p;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    Task task = new Task("Producer-" + producerId, 1 + i % Task.MAX_PRIORITY, "payload");
+                    while (!queue.offer(task)) {
+                        Thread.onSpinWait();
+                    }
+                    maxObservedSize.accumulateAndGet(queue.size(), Math::max);
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < producers; c++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (remaining.get() > 0) {
+                    Task task = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        received.add(task.getId());
+                        remaining.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(total, received.size());
+        assertTrue(maxObservedSize.get() <= capacity, "size reached " + maxObservedSize.get());
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+}
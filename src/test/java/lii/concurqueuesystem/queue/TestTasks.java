@@ -0,0 +1,32 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Task fixtures shared by the queue and persistence tests.
+public final class TestTasks {
+
+    private TestTasks() {
+    }
+
+    // Named <prefix>-Task-0 up to <prefix>-Task-(count-1), so FairShareQueue.BY_NAME_PREFIX maps them to one tenant.
+    public static List<Task> tasks(String prefix, int count, int priority) {
+        return tasks(prefix, count, priority, "payload");
+    }
+
+    public static List<Task> tasks(String prefix, int count, int priority, String payload) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task(prefix + "-Task-" + i, priority, payload));
+        }
+        return tasks;
+    }
+
+    public static Task createdAt(String name, int priority, Instant created) {
+        return new Task(UUID.randomUUID(), name, priority, created, "payload", 0);
+    }
+}
@@ -0,0 +1,47 @@
+package lii.concurqueuesystem.queue;
+
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkStealingSchedulerTest {
+
+    @Test
+    void workerQueueIsNotEmptyWhileTheGlobalQueueHoldsTasks() {
+        PriorityBucketQueue globalQueue = new PriorityBucketQueue();
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(globalQueue, 2, 4, 8);
+        BlockingQueue<Task> workerQueue = scheduler.workerQueue(0);
+        assertTrue(workerQueue.isEmpty());
+
+        globalQueue.offer(new Task("Global-Task-1", 5, "payload"));
+
+        assertFalse(workerQueue.isEmpty());
+        assertEquals(1, workerQueue.size());
+        assertNotNull(workerQueue.poll());
+        assertTrue(workerQueue.isEmpty());
+    }
+
+    @Test
+    void idleWorkerStealsFromTheTailOfAnotherWorkersDeque() {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(new PriorityBucketQueue(), 2, 4, 8);
+        BlockingQueue<Task> busy = scheduler.workerQueue(0);
+        BlockingQueue<Task> idle = scheduler.workerQueue(1);
+        Task first = new Task("Local-Task-1", 5, "payload");
+        Task last = new Task("Local-Task-2", 5, "payload");
+        busy.offer(first);
+        busy.offer(last);
+
+        assertSame(last, idle.poll());
+        assertEquals(1, scheduler.getSteals());
+        assertSame(first, busy.poll());
+        assertNull(idle.poll());
+    }
+}
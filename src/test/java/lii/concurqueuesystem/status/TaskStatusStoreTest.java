@@ -0,0 +1,173 @@
+package lii.concurqueuesystem.status;
+
+import lii.concurqueuesystem.enums.TaskStatus;
+import lii.concurqueuesystem.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskStatusStoreTest {
+
+    private static final int SEGMENTS = 64;
+
+    @Test
+    void putReturnsThePreviousStatusAndKeepsCountsInStep() {
+        TaskStatusStore store = new TaskStatusStore(60_000, 10_000);
+        UUID id = UUID.randomUUID();
+
+        assertNull(store.put(id, TaskStatus.SUBMITTED));
+        assertEquals(TaskStatus.SUBMITTED, store.put(id, TaskStatus.PROCESSING));
+        assertEquals(TaskStatus.PROCESSING, store.get(id));
+        assertEquals(1, store.size());
+        assertEquals(0, store.count(TaskStatus.SUBMITTED));
+        assertEquals(1, store.count(TaskStatus.PROCESSING));
+        assertNull(store.get(UUID.randomUUID()));
+    }
+
+    @Test
+    void growingSegmentsRehashWithoutLosingEntries() {
+        TaskStatusStore store = new TaskStatusStore(60_000, 10_000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            store.put(id, TaskStatus.PROCESSING);
+        }
+
+        assertEquals(20_000, store.size());
+        assertEquals(20_000, store.count(TaskStatus.PROCESSING));
+        for (UUID id : ids) {
+            assertEquals(TaskStatus.PROCESSING, store.get(id));
+        }
+    }
+
+    @Test
+    void terminalListenerFiresOnceOnTheFirstTerminalTransition() {
+        TaskStatusStore store = new TaskStatusStore(60_000, 10_000);
+        List<UUID> terminal = new ArrayList<>();
+        store.setTerminalListener((id, status) -> terminal.add(id));
+        UUID id = UUID.randomUUID();
+
+        store.put(id, TaskStatus.PROCESSING);
+        store.put(id, TaskStatus.COMPLETED);
+        store.put(id, TaskStatus.DROPPED);
+
+        assertEquals(List.of(id), terminal);
+    }
+
+    @Test
+    void putAllMatchesSingleUpdatesAcrossSegments() {
+        TaskStatusStore store = new TaskStatusStore(60_000, 10_000);
+        List<UUID> terminal = new ArrayList<>();
+        store.setTerminalListener((id, status) -> terminal.add(id));
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            tasks.add(new Task("Bulk-Task-" + i, 5, "payload"));
+        }
+
+        store.putAll(tasks, TaskStatus.SUBMITTED);
+        store.putAll(tasks.subList(0, 300), TaskStatus.DROPPED);
+        store.putAll(tasks.subList(0, 300), TaskStatus.DROPPED);
+
+        assertEquals(1_000, store.size());
+        assertEquals(700, store.count(TaskStatus.SUBMITTED));
+        assertEquals(300, store.count(TaskStatus.DROPPED));
+        assertEquals(300, terminal.size());
+        assertEquals(TaskStatus.DROPPED, store.get(tasks.get(0).getId()));
+        assertEquals(TaskStatus.SUBMITTED, store.get(tasks.get(999).getId()));
+    }
+
+    @Test
+    void trimKeepsThreeQuartersOfTheLimitWhenEntriesShareASecond() {
+        int perSegment = 8;
+        TaskStatusStore store = new TaskStatusStore(60_000, perSegment * SEGMENTS);
+        List<UUID> live = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = UUID.randomUUID();
+            store.put(id, TaskStatus.COMPLETED);
+            if (i % 10 == 0) {
+                UUID running = UUID.randomUUID();
+                store.put(running, TaskStatus.PROCESSING);
+                live.add(running);
+            }
+        }
+
+        // Every insert lands in the same second, so a trim by timestamp alone would empty whole segments.
+        long retainedTerminal = store.size() - live.size();
+        assertTrue(retainedTerminal >= (long) SEGMENTS * perSegment * 3 / 4,
+                "retained " + retainedTerminal + " terminal entries");
+        assertTrue(retainedTerminal <= (long) SEGMENTS * perSegment, "retained " + retainedTerminal);
+        assertEquals(5_000, store.count(TaskStatus.COMPLETED));
+        assertEquals(5_000 - retainedTerminal, store.getEvicted());
+        for (UUID id : live) {
+            assertEquals(TaskStatus.PROCESSING, store.get(id));
+        }
+    }
+
+    @Test
+    void evictExpiredRemovesOnlyTerminalEntriesPastRetention() throws Exception {
+        TaskStatusStore store = new TaskStatusStore(1_000, 10_000);
+        UUID done = UUID.randomUUID();
+        UUID running = UUID.randomUUID();
+        store.put(done, TaskStatus.COMPLETED);
+        store.put(running, TaskStatus.PROCESSING);
+
+        assertEquals(0, store.evictExpired());
+        Thread.sleep(2_100);
+
+        assertEquals(1, store.evictExpired());
+        assertNull(store.get(done));
+        assertEquals(TaskStatus.PROCESSING, store.get(running));
+        assertEquals(1, store.count(TaskStatus.COMPLETED));
+    }
+
+    @Test
+    void concurrentWritersSeeTheirOwnLatestStatus() throws Exception {
+        TaskStatusStore store = new TaskStatusStore(60_000, 100_000);
+        int threads = 8;
+        int perThread = 5_000;
+        Map<UUID, TaskStatus> expected = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger terminalEvents = new AtomicInteger();
+        store.setTerminalListener((id, status) -> terminalEvents.incrementAndGet());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    UUID id = UUID.randomUUID();
+                    store.put(id, TaskStatus.SUBMITTED);
+                    store.put(id, TaskStatus.PROCESSING);
+                    TaskStatus last = i % 2 == 0 ? TaskStatus.COMPLETED : TaskStatus.PROCESSING;
+                    store.put(id, last);
+                    expected.put(id, last);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, store.size());
+        assertEquals(threads * perThread / 2, store.count(TaskStatus.COMPLETED));
+        assertEquals(threads * perThread / 2, terminalEvents.get());
+        expected.forEach((id, status) -> assertEquals(status, store.get(id)));
+    }
+}